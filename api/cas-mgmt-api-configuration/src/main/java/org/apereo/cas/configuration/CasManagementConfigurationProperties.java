@@ -179,6 +179,134 @@ public class CasManagementConfigurationProperties implements Serializable {
          * Version Control flag.
          */
         private boolean enabled;
+
+        /**
+         * Settings of the JGit cache of pack file windows, shared by all repositories.
+         */
+        private PackCache packCache = new PackCache();
+
+        /**
+         * Maximum number of bytes of formatted diffs cached for the change views.
+         */
+        private long diffCacheSize = 16 * 1024 * 1024;
+
+        /**
+         * Maximum number of service blobs whose name, id and type are cached for the change and history listings.
+         */
+        private long metadataCacheSize = 10000;
+
+        /**
+         * Scheduled gc of the services repository and the delegated users' repositories.
+         */
+        private Maintenance maintenance = new Maintenance();
+
+        /**
+         * Distribution of published services to the service registry directory of each CAS server.
+         */
+        private Distribution distribution = new Distribution();
+    }
+
+    @Getter
+    @Setter
+    @RequiresModule(name = "cas-mgmt-config-version-control")
+    public static class Distribution implements Serializable {
+        /**
+         * Distribution flag.
+         */
+        private boolean enabled;
+
+        /**
+         * Number of times a server is retried after a failed attempt.
+         */
+        private int retries = 2;
+
+        /**
+         * Delay between attempts on one server, as an ISO-8601 duration.
+         */
+        private String retryDelay = "PT5S";
+
+        /**
+         * Maximum number of servers written to at the same time.
+         */
+        private int threads = 8;
+    }
+
+    @Getter
+    @Setter
+    @RequiresModule(name = "cas-mgmt-config-version-control")
+    public static class Maintenance implements Serializable {
+        /**
+         * Maintenance flag.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Delay after startup before the first run, as an ISO-8601 duration.
+         */
+        private String startDelay = "PT5M";
+
+        /**
+         * Delay between the end of one run and the start of the next, as an ISO-8601 duration.
+         */
+        private String repeatInterval = "PT6H";
+
+        /**
+         * Local time window in which runs may start, in the form {@code HH:mm-HH:mm}. A window may wrap past
+         * midnight. Runs may start at any time when blank.
+         */
+        private String window;
+
+        /**
+         * A repository is skipped when it was changed more recently than this, as an ISO-8601 duration.
+         */
+        private String minIdle = "PT15M";
+
+        /**
+         * Unreachable objects younger than this are not pruned, as an ISO-8601 duration.
+         */
+        private String pruneExpire = "P14D";
+
+        /**
+         * Reflog entries older than this are removed, as an ISO-8601 duration.
+         */
+        private String reflogExpire = "P90D";
+
+        /**
+         * While shared clones exist a repository is not gc'd, and each run adds a pack of its loose objects. When a
+         * run would leave more packs than this, all of the repository's packs and loose objects are merged into one
+         * pack that keeps unreachable objects.
+         */
+        private int maxPackFiles = 16;
+    }
+
+    @Getter
+    @Setter
+    @RequiresModule(name = "cas-mgmt-config-version-control")
+    public static class PackCache implements Serializable {
+        /**
+         * Maximum number of bytes of pack files held in memory.
+         */
+        private long packedGitLimit = 10 * 1024 * 1024;
+
+        /**
+         * Size in bytes of each window read from a pack file. Must be a power of 2.
+         */
+        private int packedGitWindowSize = 8 * 1024;
+
+        /**
+         * Maximum number of bytes of inflated delta bases cached by each reader.
+         */
+        private int deltaBaseCacheLimit = 10 * 1024 * 1024;
+
+        /**
+         * Maximum number of pack files kept open.
+         */
+        private int packedGitOpenFiles = 128;
+
+        /**
+         * Read pack files through memory mapped windows instead of heap buffers.
+         */
+        private boolean packedGitMmap;
     }
 
     @Getter
@@ -190,6 +318,23 @@ public class CasManagementConfigurationProperties implements Serializable {
          */
         private String userReposDir = "/etc/cas/user-repos";
 
+        /**
+         * Maximum number of delegated users whose services managers are kept in memory.
+         */
+        private int managerPoolSize = 200;
+
+        /**
+         * Time a delegated user's services manager is kept in memory after its last use, as an ISO-8601 duration.
+         */
+        private String managerIdleTimeout = "PT30M";
+
+        /**
+         * Clone users' repositories so they read objects from the services repository through git alternates
+         * instead of copying them. Falls back to a full clone if the shared clone fails. While shared clones exist,
+         * maintenance packs the services repository's loose objects but does not prune it.
+         */
+        private boolean sharedObjects = true;
+
         /**
          * Delegated auth flag.
          */
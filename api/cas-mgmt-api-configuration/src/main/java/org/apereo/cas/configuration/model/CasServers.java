@@ -25,4 +25,10 @@ public class CasServers implements Serializable {
      */
     private String url;
 
+    /**
+     * Directory of the server's service registry as mounted on this host. Published services are distributed to it
+     * when distribution is enabled.
+     */
+    private String servicesDir;
+
 }
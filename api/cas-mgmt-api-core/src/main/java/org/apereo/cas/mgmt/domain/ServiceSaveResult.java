@@ -0,0 +1,71 @@
+package org.apereo.cas.mgmt.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Class used to report the outcome of saving a single service in a bulk request.
+ *
+ * @author Travis Schmidt
+ * @since 6.2
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ServiceSaveResult implements Serializable {
+
+    /**
+     * Service was written to the registry.
+     */
+    public static final String SAVED = "SAVED";
+
+    /**
+     * Service was written to the registry but the commit requested with it failed.
+     */
+    public static final String UNCOMMITTED = "UNCOMMITTED";
+
+    /**
+     * Service failed validation and was not written.
+     */
+    public static final String REJECTED = "REJECTED";
+
+    /**
+     * Service passed validation but the registry failed to write it.
+     */
+    public static final String FAILED = "FAILED";
+
+    private static final long serialVersionUID = -2386204517203940861L;
+
+    /**
+     * Position of the service in the request.
+     */
+    private int index;
+
+    /**
+     * Id assigned to the service.
+     */
+    private String assignedId;
+
+    /**
+     * Service ID as url for the service.
+     */
+    private String serviceId;
+
+    /**
+     * Given name of the service.
+     */
+    private String name;
+
+    /**
+     * One of SAVED, UNCOMMITTED, REJECTED or FAILED.
+     */
+    private String status;
+
+    /**
+     * Reason the service was not saved.
+     */
+    private String message;
+}
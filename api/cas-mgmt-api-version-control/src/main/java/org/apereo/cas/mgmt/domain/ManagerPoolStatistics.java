@@ -0,0 +1,68 @@
+package org.apereo.cas.mgmt.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Data class used to pass the size and hit, miss and eviction counts of the delegated users' manager pool to client.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Data
+@NoArgsConstructor
+public class ManagerPoolStatistics implements Serializable {
+    private static final long serialVersionUID = -5804719213457290583L;
+
+    /**
+     * Number of managers in the pool.
+     */
+    private long size;
+
+    /**
+     * Maximum number of managers kept in the pool.
+     */
+    private long maximumSize;
+
+    /**
+     * Number of leases currently held by requests.
+     */
+    private long leased;
+
+    /**
+     * Number of requests that found their user's manager in the pool.
+     */
+    private long hitCount;
+
+    /**
+     * Number of requests that had to build their user's manager.
+     */
+    private long missCount;
+
+    /**
+     * Ratio of hits to requests.
+     */
+    private double hitRate;
+
+    /**
+     * Number of managers built.
+     */
+    private long loadCount;
+
+    /**
+     * Number of managers that failed to build.
+     */
+    private long loadFailureCount;
+
+    /**
+     * Average time in milliseconds taken to build a manager.
+     */
+    private long averageLoadMillis;
+
+    /**
+     * Number of managers evicted because the pool was full or they were idle.
+     */
+    private long evictionCount;
+}
@@ -0,0 +1,58 @@
+package org.apereo.cas.mgmt.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Data class used to pass the outcome of distributing published services to one CAS server to the client.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Data
+@NoArgsConstructor
+public class NodeDistribution implements Serializable {
+    private static final long serialVersionUID = -1843070256629140283L;
+
+    /**
+     * Name of the server.
+     */
+    private String name;
+
+    /**
+     * Service registry directory of the server.
+     */
+    private String servicesDir;
+
+    /**
+     * True if every change was written to the server.
+     */
+    private boolean success;
+
+    /**
+     * Number of attempts made.
+     */
+    private int attempts;
+
+    /**
+     * Number of service files written.
+     */
+    private int written;
+
+    /**
+     * Number of service files deleted.
+     */
+    private int deleted;
+
+    /**
+     * Reason the last attempt failed.
+     */
+    private String error;
+
+    /**
+     * Duration in milliseconds of the distribution to the server.
+     */
+    private long duration;
+}
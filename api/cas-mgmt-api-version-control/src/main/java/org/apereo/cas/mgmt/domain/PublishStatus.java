@@ -0,0 +1,75 @@
+package org.apereo.cas.mgmt.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data class used to pass the progress of a publish or sync job to the client.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Data
+@NoArgsConstructor
+public class PublishStatus implements Serializable {
+    private static final long serialVersionUID = 6920134471832605287L;
+
+    /**
+     * Id of the job.
+     */
+    private String id;
+
+    /**
+     * PUBLISH if the job applies the unpublished changes before syncing the CAS servers, SYNC if it only syncs them.
+     */
+    private String type;
+
+    /**
+     * Current phase of the job: DIFF, DELETE, SAVE, DISTRIBUTE, SYNC, COMPLETED, FAILED or CANCELLED.
+     */
+    private String phase;
+
+    /**
+     * Number of changed services to apply.
+     */
+    private int total;
+
+    /**
+     * Number of changed services applied so far.
+     */
+    private int applied;
+
+    /**
+     * Outcome of distributing the published services to each CAS server.
+     */
+    private List<NodeDistribution> nodes = new ArrayList<>();
+
+    /**
+     * Lines written by the sync script, starting at the line requested by the client.
+     */
+    private List<String> output = new ArrayList<>();
+
+    /**
+     * Total number of lines written by the sync script so far.
+     */
+    private int outputLines;
+
+    /**
+     * Time the job started.
+     */
+    private String started;
+
+    /**
+     * Time the job finished, or null while it is running.
+     */
+    private String finished;
+
+    /**
+     * Reason the job failed.
+     */
+    private String error;
+}
@@ -0,0 +1,73 @@
+package org.apereo.cas.mgmt.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Data class used to pass the object counts and pack sizes of a repository and its last maintenance run to client.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Data
+@NoArgsConstructor
+public class RepositoryStatistics implements Serializable {
+    private static final long serialVersionUID = 3316412873219364872L;
+
+    /**
+     * Path of the repository working tree.
+     */
+    private String path;
+
+    /**
+     * Number of loose objects.
+     */
+    private long looseObjects;
+
+    /**
+     * Total size in bytes of loose objects.
+     */
+    private long looseObjectsSize;
+
+    /**
+     * Number of objects in pack files.
+     */
+    private long packedObjects;
+
+    /**
+     * Total size in bytes of pack files.
+     */
+    private long packedObjectsSize;
+
+    /**
+     * Number of pack files.
+     */
+    private long packFiles;
+
+    /**
+     * Number of loose refs.
+     */
+    private long looseRefs;
+
+    /**
+     * Number of packed refs.
+     */
+    private long packedRefs;
+
+    /**
+     * Time maintenance last ran on the repository, or null if it has not run since startup.
+     */
+    private String lastRun;
+
+    /**
+     * Outcome of the last maintenance run.
+     */
+    private String lastResult;
+
+    /**
+     * Duration in milliseconds of the last maintenance run.
+     */
+    private long lastDuration;
+}
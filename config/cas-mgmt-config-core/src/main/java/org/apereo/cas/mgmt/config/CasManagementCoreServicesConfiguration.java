@@ -17,6 +17,7 @@ import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.services.resource.DefaultRegisteredServiceResourceNamingStrategy;
 import org.apereo.cas.services.resource.RegisteredServiceResourceNamingStrategy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apereo.services.persondir.IPersonAttributeDao;
@@ -54,6 +55,9 @@ public class CasManagementCoreServicesConfiguration {
     @Qualifier("servicesManager")
     private ObjectProvider<ServicesManager> servicesManager;
 
+    @Autowired
+    private ObjectProvider<ObjectMapper> objectMapper;
+
     @Bean
     @ConditionalOnMissingBean(name = "managerFactory")
     public MgmtManagerFactory managerFactory() {
@@ -85,7 +89,8 @@ public class CasManagementCoreServicesConfiguration {
 
     @Bean
     public ServiceController serviceController() {
-        return new ServiceController(casUserProfileFactory.getIfAvailable(), managerFactory());
+        return new ServiceController(casUserProfileFactory.getIfAvailable(), managerFactory(),
+                objectMapper.getIfAvailable(ObjectMapper::new));
     }
 
     @Bean
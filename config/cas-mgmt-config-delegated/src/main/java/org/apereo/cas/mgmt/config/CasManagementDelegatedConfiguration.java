@@ -75,8 +75,7 @@ public class CasManagementDelegatedConfiguration {
             if (user.isAdministrator()) {
                 val git = repositoryFactory.getIfAvailable().masterRepository();
                 try {
-                    return (int) git.branches()
-                            .map(git::mapBranches)
+                    return (int) git.branchSummaries().stream()
                             .filter(r -> DelegatedUtil.filterPulls(r, new boolean[]{true, false, false}))
                             .count();
                 } catch (final Exception e) {
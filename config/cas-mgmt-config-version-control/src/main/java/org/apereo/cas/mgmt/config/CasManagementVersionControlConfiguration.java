@@ -4,15 +4,20 @@ import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.CasManagementConfigurationProperties;
 import org.apereo.cas.mgmt.MgmtManagerFactory;
 import org.apereo.cas.mgmt.PendingRequests;
+import org.apereo.cas.mgmt.PublishJobs;
+import org.apereo.cas.mgmt.RepositoryMaintenance;
+import org.apereo.cas.mgmt.ServiceDistributor;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
 import org.apereo.cas.mgmt.controller.ChangeController;
 import org.apereo.cas.mgmt.controller.CommitController;
 import org.apereo.cas.mgmt.controller.HistoryController;
+import org.apereo.cas.mgmt.controller.MaintenanceController;
 import org.apereo.cas.mgmt.factory.RepositoryFactory;
 import org.apereo.cas.mgmt.factory.VersionControlManagerFactory;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.services.resource.RegisteredServiceResourceNamingStrategy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.ObjectProvider;
@@ -55,6 +60,9 @@ public class CasManagementVersionControlConfiguration {
     @Qualifier("namingStrategy")
     private ObjectProvider<RegisteredServiceResourceNamingStrategy> namingStrategy;
 
+    @Autowired
+    private ObjectProvider<ObjectMapper> objectMapper;
+
 
     @Bean(name = "managerFactory")
     @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
@@ -73,7 +81,20 @@ public class CasManagementVersionControlConfiguration {
     @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
     public CommitController commitController() {
         return new CommitController(repositoryFactory(), casUserProfileFactory.getIfAvailable(),
-                managementProperties, servicesManager.getIfAvailable(), pendingRequests);
+                publishJobs(), pendingRequests);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
+    public PublishJobs publishJobs() {
+        return new PublishJobs(repositoryFactory(), servicesManager.getIfAvailable(), managementProperties,
+                serviceDistributor());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
+    public ServiceDistributor serviceDistributor() {
+        return new ServiceDistributor(managementProperties);
     }
 
     @Bean
@@ -85,7 +106,21 @@ public class CasManagementVersionControlConfiguration {
     @Bean
     @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
     public HistoryController historyController() {
-        return new HistoryController(repositoryFactory(), managerFactory(), casUserProfileFactory.getIfAvailable());
+        return new HistoryController(repositoryFactory(), managerFactory(), casUserProfileFactory.getIfAvailable(),
+                objectMapper.getIfAvailable(ObjectMapper::new));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
+    public RepositoryMaintenance repositoryMaintenance() {
+        return new RepositoryMaintenance(managementProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mgmt.versionControl", name = "enabled", havingValue = "true")
+    public MaintenanceController maintenanceController() {
+        return new MaintenanceController(repositoryMaintenance(), (VersionControlManagerFactory) managerFactory(),
+                casUserProfileFactory.getIfAvailable());
     }
 
 }
@@ -4,13 +4,13 @@ import org.apereo.cas.mgmt.domain.MgmtUserProfile;
 import org.apereo.cas.mgmt.util.CasManagementUtils;
 import org.apereo.cas.services.RegisteredService;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.val;
 
 import org.pac4j.core.profile.CommonProfile;
 import org.pac4j.core.profile.definition.CommonProfileDefinition;
 
-import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -26,6 +26,9 @@ public class CasUserProfile extends CommonProfile implements MgmtUserProfile {
     private final boolean administrator;
     private final boolean delegate;
 
+    @Getter(AccessLevel.NONE)
+    private transient volatile PermissionMatcher permissionMatcher;
+
     public CasUserProfile() {
         this.administrator = false;
         this.delegate = false;
@@ -71,6 +74,15 @@ public class CasUserProfile extends CommonProfile implements MgmtUserProfile {
         return findFirstMatchingAttribute("email|mail");
     }
 
+    private PermissionMatcher permissionMatcher() {
+        var matcher = this.permissionMatcher;
+        if (matcher == null) {
+            matcher = new PermissionMatcher(getPermissions());
+            this.permissionMatcher = matcher;
+        }
+        return matcher;
+    }
+
     private String findFirstMatchingAttribute(final String pattern) {
         return getAttributes().entrySet()
             .stream()
@@ -80,6 +92,18 @@ public class CasUserProfile extends CommonProfile implements MgmtUserProfile {
             .orElse(null);
     }
 
+    @Override
+    public void addPermission(final String permission) {
+        super.addPermission(permission);
+        this.permissionMatcher = null;
+    }
+
+    @Override
+    public void addPermissions(final Collection<String> permissions) {
+        super.addPermissions(permissions);
+        this.permissionMatcher = null;
+    }
+
     /**
      * Checks a user's permissions if they have access to the passed domain.
      *
@@ -87,9 +111,7 @@ public class CasUserProfile extends CommonProfile implements MgmtUserProfile {
      * @return - true if user has permission
      */
     public boolean hasPermission(final String domain) {
-        val permissions = getPermissions();
-        return isAdministrator() || permissions.contains("*")
-                || permissions.stream().anyMatch(domain::endsWith);
+        return isAdministrator() || permissionMatcher().matches(domain);
     }
 
     /**
@@ -99,13 +121,22 @@ public class CasUserProfile extends CommonProfile implements MgmtUserProfile {
      * @return true if user has permission
      */
     public boolean hasPermission(final RegisteredService service) {
-        val permissions = getPermissions();
-        if (isAdministrator() || permissions.contains("*")) {
+        return isAdministrator() || hasPermission(CasManagementUtils.extractDomains(service.getServiceId()));
+    }
+
+    /**
+     * Checks if user has permission to any of the passed domains, as extracted from a serviceId
+     * by {@link CasManagementUtils#extractDomains(String)}.
+     *
+     * @param domains - the domains
+     * @return true if user has permission
+     */
+    public boolean hasPermission(final Collection<String> domains) {
+        if (isAdministrator()) {
             return true;
         }
-        return Arrays.stream(service.getServiceId().split("|"))
-                .map(CasManagementUtils::extractDomain)
-                .anyMatch(d -> permissions.stream().anyMatch(d::endsWith));
+        val matcher = permissionMatcher();
+        return domains.stream().anyMatch(matcher::matches);
     }
 
     public boolean isUser() {
@@ -0,0 +1,63 @@
+package org.apereo.cas.mgmt.authentication;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matches domains against a user's permissions. A permission grants every domain that ends with it, so the
+ * permissions are compiled into a trie over their reversed characters and a domain is matched with a single walk
+ * from its last character, instead of testing each permission with {@link String#endsWith(String)}.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+class PermissionMatcher {
+
+    private static final String ALL = "*";
+
+    private final Node root = new Node();
+
+    private final boolean all;
+
+    PermissionMatcher(final Collection<String> permissions) {
+        this.all = permissions.contains(ALL);
+        permissions.forEach(this::add);
+    }
+
+    /**
+     * Returns true if the user has a permission that the domain ends with.
+     *
+     * @param domain - the domain
+     * @return - true if permitted
+     */
+    boolean matches(final String domain) {
+        if (all || root.terminal) {
+            return true;
+        }
+        var node = root;
+        for (var i = domain.length() - 1; i >= 0; i--) {
+            node = node.children.get(domain.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(final String permission) {
+        var node = root;
+        for (var i = permission.length() - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(permission.charAt(i), c -> new Node());
+        }
+        node.terminal = true;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(2);
+        private boolean terminal;
+    }
+}
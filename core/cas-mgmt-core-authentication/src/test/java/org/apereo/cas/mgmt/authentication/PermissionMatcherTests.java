@@ -0,0 +1,59 @@
+package org.apereo.cas.mgmt.authentication;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for PermissionMatcher.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class PermissionMatcherTests {
+
+    @Test
+    public void matchesDomainsEndingWithAPermission() {
+        final PermissionMatcher matcher = new PermissionMatcher(List.of("example.org", "apps.example.edu"));
+        assertTrue(matcher.matches("example.org"));
+        assertTrue(matcher.matches("www.example.org"));
+        assertTrue(matcher.matches("login.apps.example.edu"));
+        assertFalse(matcher.matches("example.edu"));
+        assertFalse(matcher.matches("example.com"));
+        assertFalse(matcher.matches("org"));
+    }
+
+    @Test
+    public void matchesBySuffixNotByLabel() {
+        final PermissionMatcher matcher = new PermissionMatcher(List.of("example.org"));
+        assertTrue(matcher.matches("myexample.org"));
+    }
+
+    @Test
+    public void shorterPermissionWinsOverLongerOne() {
+        final PermissionMatcher matcher = new PermissionMatcher(List.of("www.example.org", "org"));
+        assertTrue(matcher.matches("other.org"));
+        assertTrue(matcher.matches("www.example.org"));
+    }
+
+    @Test
+    public void wildcardMatchesEverything() {
+        final PermissionMatcher matcher = new PermissionMatcher(List.of("*"));
+        assertTrue(matcher.matches("anything.example.net"));
+        assertTrue(matcher.matches("default"));
+    }
+
+    @Test
+    public void emptyPermissionMatchesEverything() {
+        assertTrue(new PermissionMatcher(List.of("")).matches("example.org"));
+    }
+
+    @Test
+    public void noPermissionsMatchNothing() {
+        final PermissionMatcher matcher = new PermissionMatcher(List.of());
+        assertFalse(matcher.matches("example.org"));
+        assertFalse(matcher.matches(""));
+    }
+}
@@ -18,8 +18,12 @@ import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * This is {@link CasManagementUtils}.
@@ -30,6 +34,21 @@ import java.util.regex.Pattern;
 @Slf4j
 public final class CasManagementUtils {
 
+    /**
+     * Type returned for OAuth and OIDC services.
+     */
+    public static final String TYPE_OAUTH = "OAuth";
+
+    /**
+     * Type returned for SAML services.
+     */
+    public static final String TYPE_SAML = "SAML";
+
+    /**
+     * Type returned for all other services.
+     */
+    public static final String TYPE_CAS = "CAS";
+
     private static final RegisteredServiceJsonSerializer JSON_SERIALIZER = new RegisteredServiceJsonSerializer();
     private static final RegisteredServiceYamlSerializer YAML_SERIALIZER = new RegisteredServiceYamlSerializer();
     private static final Pattern DOMAIN_EXTRACTOR = RegexUtils.createPattern("^\\^?https?\\??://(.*?)(?:[(]?[:/]|$)");
@@ -79,6 +98,17 @@ public final class CasManagementUtils {
         return output.toString();
     }
 
+    /**
+     * Returns a deep copy of the passed service. Services read from a registry may be shared with other managers, so
+     * a service is copied before it is modified.
+     *
+     * @param service - the service
+     * @return - the copy
+     */
+    public static RegisteredService copy(final RegisteredService service) {
+        return fromJson(toJson(service));
+    }
+
     /**
      * Parses the passed yaml into a RegisteredService.
      *
@@ -155,6 +185,19 @@ public final class CasManagementUtils {
         return extractor.lookingAt() ? validateDomain(extractor.group(1)) : "default";
     }
 
+    /**
+     * Extracts the domain of each alternative in a serviceId. Alternatives are separated by '|' so a serviceId
+     * such as {@code https://a.example.org/.*|https://b.example.org/.*} yields both domains.
+     *
+     * @param serviceId the service id
+     * @return the distinct domains
+     */
+    public static Set<String> extractDomains(final String serviceId) {
+        return Arrays.stream(StringUtils.split(StringUtils.defaultString(serviceId), '|'))
+                .map(CasManagementUtils::extractDomain)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
     /**
      * Validate domain string.
      *
@@ -186,13 +229,22 @@ public final class CasManagementUtils {
      * @return - service type
      */
     public static String getType(final RegisteredService service) {
-        val name = service.getClass().getName();
+        return getType(service.getClass().getName());
+    }
+
+    /**
+     * Determines Type of service from the name of its class and returns a string.
+     *
+     * @param name - the class name
+     * @return - service type
+     */
+    public static String getType(final String name) {
         if (name.contains("OAuth") || name.contains("Oidc")) {
-            return "OAuth";
+            return TYPE_OAUTH;
         }
         if (name.contains("Saml")) {
-            return "SAML";
+            return TYPE_SAML;
         }
-        return "CAS";
+        return TYPE_CAS;
     }
 }
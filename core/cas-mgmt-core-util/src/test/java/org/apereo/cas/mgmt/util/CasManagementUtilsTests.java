@@ -0,0 +1,62 @@
+package org.apereo.cas.mgmt.util;
+
+import org.apereo.cas.services.RegexRegisteredService;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for CasManagementUtils.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class CasManagementUtilsTests {
+
+    @Test
+    public void extractDomainsOfEachAlternative() {
+        assertEquals(List.of("a.example.org", "b.example.org"),
+                List.copyOf(CasManagementUtils.extractDomains("^https://a\\.example\\.org/.*|https://b.example.org/.*")));
+    }
+
+    @Test
+    public void extractDomainsCollapsesDuplicates() {
+        assertEquals(Set.of("app.example.org", "default"),
+                CasManagementUtils.extractDomains("https://app.example.org/a|https://APP.example.org/b|.*"));
+    }
+
+    @Test
+    public void extractDomainsOfNullIsEmpty() {
+        assertTrue(CasManagementUtils.extractDomains(null).isEmpty());
+    }
+
+    @Test
+    public void typeFromClassName() {
+        assertEquals(CasManagementUtils.TYPE_OAUTH, CasManagementUtils.getType("org.apereo.cas.support.oauth.services.OAuthRegisteredService"));
+        assertEquals(CasManagementUtils.TYPE_OAUTH, CasManagementUtils.getType("org.apereo.cas.services.OidcRegisteredService"));
+        assertEquals(CasManagementUtils.TYPE_SAML, CasManagementUtils.getType("org.apereo.cas.support.saml.services.SamlRegisteredService"));
+        assertEquals(CasManagementUtils.TYPE_CAS, CasManagementUtils.getType(RegexRegisteredService.class.getName()));
+        assertEquals(CasManagementUtils.TYPE_CAS, CasManagementUtils.getType(new RegexRegisteredService()));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        val service = new RegexRegisteredService();
+        service.setId(1);
+        service.setName("App");
+        service.setServiceId("^https://app.example.org/.*");
+
+        val copy = (RegexRegisteredService) CasManagementUtils.copy(service);
+        copy.setName("Changed");
+
+        assertNotSame(service, copy);
+        assertEquals("App", service.getName());
+        assertEquals(service.getServiceId(), copy.getServiceId());
+        assertEquals(1, copy.getId());
+    }
+}
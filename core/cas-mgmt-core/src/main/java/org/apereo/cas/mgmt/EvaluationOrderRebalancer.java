@@ -0,0 +1,131 @@
+package org.apereo.cas.mgmt;
+
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the evaluation orders needed to put the services of a domain into a target order while changing as few
+ * services as possible.
+ *
+ * <p>
+ * Services whose current orders already form the longest increasing run in the target sequence keep their order and
+ * the remaining services are fitted into the gaps between them. When the gaps are too small, the domain is renumbered
+ * densely from zero instead, and whichever plan touches fewer services is returned.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@UtilityClass
+public class EvaluationOrderRebalancer {
+
+    /**
+     * Returns the new evaluation order of every service whose order must change.
+     *
+     * @param ids - service ids in the target order
+     * @param current - current evaluation order of each service in the same positions as ids
+     * @return - map of service id to new evaluation order, in target order
+     */
+    public static Map<Long, Integer> rebalance(final List<Long> ids, final List<Integer> current) {
+        if (ids.size() != current.size()) {
+            throw new IllegalArgumentException("Each service must have a current evaluation order");
+        }
+        val orders = current.stream().mapToInt(Integer::intValue).toArray();
+        val dense = denseOrders(orders.length);
+        val fitted = fitAroundLongestRun(orders);
+        val target = fitted != null && changes(orders, fitted) < changes(orders, dense) ? fitted : dense;
+
+        val result = new LinkedHashMap<Long, Integer>();
+        for (var i = 0; i < orders.length; i++) {
+            if (orders[i] != target[i]) {
+                result.put(ids.get(i), target[i]);
+            }
+        }
+        return result;
+    }
+
+    private static int[] denseOrders(final int size) {
+        val dense = new int[size];
+        Arrays.setAll(dense, i -> i);
+        return dense;
+    }
+
+    private static int changes(final int[] orders, final int[] target) {
+        var count = 0;
+        for (var i = 0; i < orders.length; i++) {
+            if (orders[i] != target[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Keeps the longest strictly increasing run of current orders in place and assigns consecutive orders to the
+     * services between them. Returns null if a gap is too small to hold the services that must go in it.
+     */
+    private static int[] fitAroundLongestRun(final int[] orders) {
+        val target = new int[orders.length];
+        var previous = -1;
+        var previousOrder = -1;
+        for (val anchor : longestIncreasingRun(orders)) {
+            val between = anchor - previous - 1;
+            if (orders[anchor] - previousOrder - 1 < between) {
+                return null;
+            }
+            for (var i = 1; i <= between; i++) {
+                target[previous + i] = previousOrder + i;
+            }
+            target[anchor] = orders[anchor];
+            previous = anchor;
+            previousOrder = orders[anchor];
+        }
+        for (var i = previous + 1; i < orders.length; i++) {
+            target[i] = previousOrder + i - previous;
+        }
+        return target;
+    }
+
+    /**
+     * Patience sorting over the orders, returning the positions that make up the longest strictly increasing
+     * subsequence of non-negative orders.
+     */
+    private static List<Integer> longestIncreasingRun(final int[] orders) {
+        val tails = new int[orders.length];
+        val parents = new int[orders.length];
+        var length = 0;
+        for (var i = 0; i < orders.length; i++) {
+            if (orders[i] < 0) {
+                parents[i] = -1;
+                continue;
+            }
+            var low = 0;
+            var high = length;
+            while (low < high) {
+                val mid = (low + high) >>> 1;
+                if (orders[tails[mid]] < orders[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            parents[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        val run = new ArrayList<Integer>(length);
+        for (var i = length > 0 ? tails[length - 1] : -1; i >= 0; i = parents[i]) {
+            run.add(i);
+        }
+        Collections.reverse(run);
+        return run;
+    }
+}
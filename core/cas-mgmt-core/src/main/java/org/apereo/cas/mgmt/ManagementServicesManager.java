@@ -1,11 +1,12 @@
 package org.apereo.cas.mgmt;
 
 import org.apereo.cas.authentication.principal.Service;
+import org.apereo.cas.mgmt.authentication.CasUserProfile;
 import org.apereo.cas.mgmt.domain.RegisteredServiceItem;
+import org.apereo.cas.mgmt.domain.ServiceSaveResult;
 import org.apereo.cas.mgmt.util.CasManagementUtils;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.ServicesManager;
-import org.apereo.cas.services.domain.DefaultDomainAwareServicesManager;
 import org.apereo.cas.services.resource.RegisteredServiceResourceNamingStrategy;
 import org.apereo.cas.util.DigestUtils;
 
@@ -16,8 +17,12 @@ import lombok.val;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -34,21 +39,53 @@ public class ManagementServicesManager implements ServicesManager {
 
     private final ServicesManager manager;
     private final RegisteredServiceResourceNamingStrategy namingStrategy;
+    private final ServiceCatalog catalog = new ServiceCatalog();
+    private final AtomicLong lastAssignedId = new AtomicLong();
 
     /**
-     * Loads Services form an existing ServiceManger to initialize a new repository.
+     * Loads Services form an existing ServiceManger to initialize a new repository. The services are saved and
+     * indexed as one batch.
      *
      * @param manager - ServicesManger to load from
      */
     public void loadFrom(final ServicesManager manager) {
-        manager.getAllServices().forEach(this::save);
+        val failed = saveAll(manager.getAllServices()).stream()
+                .filter(r -> ServiceSaveResult.FAILED.equals(r.getStatus()))
+                .count();
+        if (failed > 0) {
+            LOGGER.warn("[{}] services could not be loaded", failed);
+        }
     }
 
+    /**
+     * Returns the list projections of the passed services. Projections are cached in the catalog and are only
+     * recreated after the service has been saved or reloaded.
+     *
+     * @param services - the services
+     * @return - List of RegisteredServiceItem
+     */
     public List<RegisteredServiceItem> getServiceItems(final Stream<RegisteredService> services) {
-        return services.map(this::createServiceItem)
+        val catalog = catalog();
+        return services.map(s -> catalog.projection(s, this::createServiceItem))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns a filter accepting the services the user has permission to. The domains of indexed services are
+     * extracted once and memoized in the catalog, so filtering a large registry only walks the user's compiled
+     * permissions for each service.
+     *
+     * @param casUserProfile - the user
+     * @return - predicate for services the user may access
+     */
+    public Predicate<RegisteredService> permittedFor(final CasUserProfile casUserProfile) {
+        if (casUserProfile.isAdministrator()) {
+            return s -> true;
+        }
+        val catalog = catalog();
+        return s -> casUserProfile.hasPermission(catalog.domains(s));
+    }
+
     /**
      * Method creates a RegisteredServiceItem from the passed Service to send to the client.
      *
@@ -69,26 +106,102 @@ public class ManagementServicesManager implements ServicesManager {
     @Override
     public void deleteAll() {
         this.manager.deleteAll();
+        this.catalog.clear();
     }
 
     @Override
     public RegisteredService save(final RegisteredService registeredService) {
-        return this.manager.save(registeredService);
+        return indexed(this.manager.save(registeredService));
     }
 
     @Override
     public RegisteredService save(final RegisteredService registeredService, final boolean b) {
-        return this.manager.save(registeredService, b);
+        return indexed(this.manager.save(registeredService, b));
+    }
+
+    /**
+     * Saves the passed services as one batch. Services without an id are assigned a unique one and services without an
+     * evaluation order are placed at the end of their domain in the order they were passed. Each service is saved as a
+     * copy so the passed services are left unchanged, and a service that fails to save gives back its order unless a
+     * later one has been taken. Registry events are not published for individual services, and a failure to save one
+     * service does not stop the rest of the batch. The catalog is updated once for the whole batch, including services
+     * that were renamed.
+     *
+     * @param services - the services to save
+     * @return - a result for each service in the order they were passed
+     */
+    public List<ServiceSaveResult> saveAll(final Collection<RegisteredService> services) {
+        val saved = new ArrayList<RegisteredService>(services.size());
+        val removed = new ArrayList<Long>();
+        val results = services.stream()
+                .map(service -> saveInBatch(service, saved, removed))
+                .collect(Collectors.toList());
+        catalog().update(saved, removed);
+        return results;
+    }
+
+    /**
+     * Puts the services of a domain into the passed order. Only services whose evaluation order actually changes are
+     * written, and they are written as one batch.
+     *
+     * @param domain - the domain
+     * @param ids - ids of every service in the domain in the target order
+     * @return - a result for each service that was rewritten
+     */
+    public List<ServiceSaveResult> reorder(final String domain, final List<Long> ids) {
+        val services = getServicesForDomain(domain).stream()
+                .collect(Collectors.toMap(RegisteredService::getId, Function.identity()));
+        val distinct = new HashSet<>(ids);
+        if (distinct.size() != ids.size()) {
+            throw new IllegalArgumentException("Target order for domain '" + domain + "' contains duplicate ids");
+        }
+        if (!distinct.equals(services.keySet())) {
+            throw new IllegalArgumentException("Target order must contain every service in domain '" + domain + "' exactly once");
+        }
+        val current = ids.stream()
+                .map(id -> services.get(id).getEvaluationOrder())
+                .collect(Collectors.toList());
+        val changed = EvaluationOrderRebalancer.rebalance(ids, current).entrySet().stream()
+                .map(e -> {
+                    val service = CasManagementUtils.copy(services.get(e.getKey()));
+                    service.setEvaluationOrder(e.getValue());
+                    return service;
+                })
+                .collect(Collectors.toList());
+        LOGGER.debug("Reordering domain [{}] rewrites [{}] of [{}] services", domain, changed.size(), ids.size());
+        return saveAll(changed);
+    }
+
+    /**
+     * Returns the evaluation order that places a new service at the end of its domain.
+     *
+     * @param serviceId - serviceId of the new service
+     * @return - the evaluation order
+     */
+    public int nextEvaluationOrder(final String serviceId) {
+        return catalog().nextEvaluationOrder(extractDomain(serviceId));
+    }
+
+    /**
+     * Records the changes made to the passed services. The default registry is not versioned so this does nothing.
+     *
+     * @param user - the user making the changes
+     * @param message - description of the changes
+     * @param services - the services that were saved
+     * @throws Exception - failed to record the changes
+     */
+    public void commit(final CasUserProfile user, final String message, final Collection<RegisteredService> services) throws Exception {
+        LOGGER.debug("Service registry is not versioned, ignoring commit [{}]", message);
     }
 
     @Override
     public RegisteredService delete(final long l) {
-        return this.manager.delete(l);
+        return unindexed(this.manager.delete(l));
     }
 
     @Override
     public RegisteredService delete(final RegisteredService registeredService) {
-        return this.manager.delete(registeredService);
+        return unindexed(this.manager.delete(registeredService));
     }
 
     @Override
@@ -118,7 +231,7 @@ public class ManagementServicesManager implements ServicesManager {
 
     @Override
     public RegisteredService findServiceBy(final long l) {
-        return this.manager.findServiceBy(l);
+        return catalog().findById(l);
     }
 
     @Override
@@ -129,7 +242,9 @@ public class ManagementServicesManager implements ServicesManager {
     @Override
     public Collection<RegisteredService> load() {
         LOGGER.debug("Loading registered services from CAS service registry...");
-        return this.manager.load();
+        val services = loadManager();
+        reindexAll();
+        return services;
     }
 
     @Override
@@ -137,15 +252,69 @@ public class ManagementServicesManager implements ServicesManager {
         return this.manager.count();
     }
 
-    //@Override
+    /**
+     * Returns the current catalog snapshot. Readers that make several lookups for one response read them all from
+     * the same snapshot and can report its version to the client.
+     *
+     * @return - the snapshot
+     */
+    public ServiceCatalog.Snapshot snapshot() {
+        return catalog().snapshot();
+    }
+
+    /**
+     * Returns the services in the passed domain from the catalog.
+     * The domain index is maintained by this manager, so it is available regardless of the CAS management type.
+     *
+     * @param domain - the domain
+     * @return - services in the domain
+     */
     public Collection<RegisteredService> getServicesForDomain(final String domain) {
-        //return this.manager.getServicesForDomain(domain);
-        return ((DefaultDomainAwareServicesManager) this.manager).getServicesForDomain(domain);
+        return catalog().findByDomain(domain);
     }
 
-    //@Override
+    /**
+     * Returns one page of the services in a domain from the catalog's sorted domain view.
+     *
+     * @param domain - the domain
+     * @param sort - the sort key
+     * @param cursor - cursor returned with the previous page, or null for the first page
+     * @param size - page size
+     * @param filter - optional text filter
+     * @return - the page
+     */
+    public ServiceCatalog.Page getServicesPage(final String domain, final ServiceCatalog.Sort sort,
+                                               final String cursor, final int size, final String filter) {
+        return catalog().page(domain, sort, cursor, size, filter);
+    }
+
+    /**
+     * Returns all domains that contain at least one service.
+     *
+     * @return - stream of domains
+     */
     public Stream<String> getDomains() {
-        return ((DefaultDomainAwareServicesManager) this.manager).getDomains();
+        return catalog().getDomains();
+    }
+
+    /**
+     * Returns services of the passed type as determined by {@link CasManagementUtils#getType(RegisteredService)}.
+     *
+     * @param type - the type
+     * @return - services of the type
+     */
+    public Collection<RegisteredService> getServicesByType(final String type) {
+        return catalog().findByType(type);
+    }
+
+    /**
+     * Returns services whose serviceId is exactly the passed string.
+     *
+     * @param serviceId - the serviceId
+     * @return - matching services
+     */
+    public Collection<RegisteredService> findServicesByServiceId(final String serviceId) {
+        return catalog().findByServiceId(serviceId);
     }
 
     /**
@@ -159,7 +328,8 @@ public class ManagementServicesManager implements ServicesManager {
     }
 
     /**
-     * Checks for existing service and if a name change will occur delete the existing service.
+     * Checks for existing service and if a name change will occur delete the existing service from the underlying
+     * manager. The catalog entry is left alone because saving the service replaces it.
      *
      * @param service - the service
      */
@@ -170,7 +340,7 @@ public class ManagementServicesManager implements ServicesManager {
             val oldName = this.namingStrategy.build(existing, StringUtils.EMPTY);
             val newName = this.namingStrategy.build(service, StringUtils.EMPTY);
             if (!oldName.equals(newName)) {
-                delete(service.getId());
+                this.manager.delete(service.getId());
             }
         }
     }
@@ -178,4 +348,100 @@ public class ManagementServicesManager implements ServicesManager {
     protected RegisteredServiceResourceNamingStrategy getNamingStrategy() {
         return namingStrategy;
     }
+
+    /**
+     * Loads the underlying manager without touching the catalog.
+     *
+     * @return - services loaded by the underlying manager
+     */
+    protected Collection<RegisteredService> loadManager() {
+        return this.manager.load();
+    }
+
+    /**
+     * Applies only the passed changes to the catalog, so unchanged services keep their catalog entries and cached
+     * projections. A catalog that has not been loaded yet is left to be indexed in full on first use.
+     *
+     * @param updated - services that were added or re-read
+     * @param removed - ids of services that no longer exist
+     */
+    protected void reindex(final Collection<RegisteredService> updated, final Collection<Long> removed) {
+        if (this.catalog.isLoaded()) {
+            this.catalog.update(updated, removed);
+        }
+    }
+
+    /**
+     * Rebuilds the catalog from the services held by the underlying manager. Called after a load, and when the
+     * underlying manager has been reloaded by someone else.
+     */
+    public void reindexAll() {
+        this.catalog.reload(this.manager.getAllServices());
+    }
+
+    /**
+     * Returns the catalog, indexing the underlying manager on first use.
+     *
+     * @return - the catalog
+     */
+    protected ServiceCatalog catalog() {
+        if (!catalog.isLoaded()) {
+            catalog.reload(this.manager.getAllServices());
+        }
+        return catalog;
+    }
+
+    private ServiceSaveResult saveInBatch(final RegisteredService service, final List<RegisteredService> saved,
+                                          final List<Long> removed) {
+        var copy = service;
+        var reserved = -1;
+        try {
+            copy = CasManagementUtils.copy(service);
+            if (copy.getId() < 0) {
+                copy.setId(nextServiceId());
+            } else {
+                checkForRename(copy);
+            }
+            if (copy.getEvaluationOrder() < 0) {
+                reserved = nextEvaluationOrder(copy.getServiceId());
+                copy.setEvaluationOrder(reserved);
+            }
+            val result = this.manager.save(copy, false);
+            saved.add(result);
+            return new ServiceSaveResult(-1, String.valueOf(result.getId()), result.getServiceId(), result.getName(),
+                    ServiceSaveResult.SAVED, null);
+        } catch (final Exception e) {
+            LOGGER.error("Failed to save service [{}]", service.getServiceId(), e);
+            if (reserved > -1) {
+                catalog().releaseEvaluationOrder(extractDomain(copy.getServiceId()), reserved);
+            }
+            if (copy.getId() > -1 && this.manager.findServiceBy(copy.getId()) == null) {
+                removed.add(copy.getId());
+            }
+            return new ServiceSaveResult(-1, String.valueOf(copy.getId()), service.getServiceId(), service.getName(),
+                    ServiceSaveResult.FAILED, e.getMessage());
+        }
+    }
+
+    private long nextServiceId() {
+        var id = lastAssignedId.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        while (catalog().findById(id) != null) {
+            id = lastAssignedId.incrementAndGet();
+        }
+        return id;
+    }
+
+    private RegisteredService indexed(final RegisteredService service) {
+        if (service != null) {
+            catalog().put(service);
+        }
+        return service;
+    }
+
+    private RegisteredService unindexed(final RegisteredService service) {
+        if (service != null) {
+            catalog().remove(service.getId());
+        }
+        return service;
+    }
 }
@@ -0,0 +1,787 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.mgmt.domain.RegisteredServiceItem;
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+import org.apereo.cas.services.RegisteredService;
+
+import com.google.common.base.Splitter;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory catalog of registered services with secondary indexes by domain, type, serviceId and id.
+ * The catalog is maintained incrementally by {@link ManagementServicesManager} as services are saved,
+ * deleted and loaded so that list views never need to scan the entire registry.
+ *
+ * <p>
+ * The indexes are held in an immutable, versioned {@link Snapshot}. Each write batch builds a new snapshot from the
+ * current one, sharing the index shards and domain views it does not touch, and swaps it in with a single volatile
+ * write. Readers never lock and always see every index from the same batch.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class ServiceCatalog {
+
+    private static final Comparator<Entry> BY_EVAL_ORDER = Comparator.comparingInt(Entry::getEvalOrder)
+            .thenComparingLong(Entry::getId);
+
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(Entry::getId);
+
+    private static final Comparator<Entry> BY_SERVICE_ID = Comparator.comparing(Entry::getServiceId)
+            .thenComparingLong(Entry::getId);
+
+    private static final char CURSOR_SEPARATOR = '\n';
+
+    private static final int CURSOR_PARTS = 3;
+
+    private final Map<String, AtomicInteger> nextOrders = new ConcurrentHashMap<>();
+
+    private volatile Snapshot current = new Snapshot(0, false, ShardedMap.empty(), ShardedMap.empty(),
+            ShardedMap.empty(), ShardedMap.empty());
+
+    /**
+     * Returns the current snapshot. Callers that read several indexes for one response read them all from the same
+     * snapshot so the results are consistent with each other.
+     *
+     * @return - the snapshot
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Returns the version of the current snapshot. The version increases with every write batch.
+     *
+     * @return - the version
+     */
+    public long getVersion() {
+        return current.getVersion();
+    }
+
+    /**
+     * Returns true once the catalog has been loaded.
+     *
+     * @return - true if loaded
+     */
+    public boolean isLoaded() {
+        return current.isLoaded();
+    }
+
+    /**
+     * Clears the catalog and indexes the passed services.
+     *
+     * @param services - the services
+     */
+    public synchronized void reload(final Collection<RegisteredService> services) {
+        nextOrders.clear();
+        publish(new Builder(null, current.getVersion() + 1).apply(services, List.of()), services);
+        LOGGER.debug("Indexed [{}] services in [{}] domains", current.size(), current.byDomain.size());
+    }
+
+    /**
+     * Adds or replaces the passed services and removes the services with the passed ids as a single batch.
+     *
+     * @param services - services to add or replace
+     * @param removed - ids of services to remove
+     */
+    public synchronized void update(final Collection<RegisteredService> services, final Collection<Long> removed) {
+        if (services.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        publish(new Builder(current, current.getVersion() + 1).apply(services, removed), services);
+    }
+
+    /**
+     * Adds or replaces the passed service in the catalog.
+     *
+     * @param service - the service
+     */
+    public void put(final RegisteredService service) {
+        update(List.of(service), List.of());
+    }
+
+    /**
+     * Removes the service with the passed id from the catalog.
+     *
+     * @param id - the service id
+     */
+    public void remove(final long id) {
+        update(List.of(), List.of(id));
+    }
+
+    /**
+     * Removes all services from the catalog.
+     */
+    public synchronized void clear() {
+        nextOrders.clear();
+        publish(new Builder(null, current.getVersion() + 1).apply(List.of(), List.of()), List.of());
+    }
+
+    /**
+     * Returns the service with the passed id.
+     *
+     * @param id - the id
+     * @return - the service or null
+     */
+    public RegisteredService findById(final long id) {
+        return current.findById(id);
+    }
+
+    /**
+     * Returns the domains extracted from each alternative of the passed service's serviceId, memoized on the catalog
+     * entry. Services that are not the instance currently indexed are extracted without caching.
+     *
+     * @param service - the service
+     * @return - the domains
+     */
+    public Set<String> domains(final RegisteredService service) {
+        val entry = current.byId.get(service.getId());
+        if (entry == null || entry.getService() != service) {
+            return CasManagementUtils.extractDomains(service.getServiceId());
+        }
+        var domains = entry.getDomains();
+        if (domains == null) {
+            domains = CasManagementUtils.extractDomains(entry.getServiceId());
+            entry.setDomains(domains);
+        }
+        return domains;
+    }
+
+    /**
+     * Returns the list projection of the passed service, creating and caching it on the catalog entry the first time
+     * it is requested. Entries are replaced whenever a service is saved, deleted or reloaded, which invalidates the
+     * cached projection. Services that are not the instance currently indexed are projected without caching.
+     *
+     * @param service - the service
+     * @param projector - function creating the projection
+     * @return - the projection
+     */
+    public RegisteredServiceItem projection(final RegisteredService service,
+                                            final Function<RegisteredService, RegisteredServiceItem> projector) {
+        val entry = current.byId.get(service.getId());
+        if (entry == null || entry.getService() != service) {
+            return projector.apply(service);
+        }
+        var item = entry.getItem();
+        if (item == null) {
+            item = projector.apply(service);
+            entry.setItem(item);
+        }
+        return item;
+    }
+
+    /**
+     * Returns the services whose serviceId is exactly the passed string.
+     *
+     * @param serviceId - the serviceId
+     * @return - the services
+     */
+    public Collection<RegisteredService> findByServiceId(final String serviceId) {
+        return current.findByServiceId(serviceId);
+    }
+
+    /**
+     * Returns the services in the passed domain ordered by evaluation order.
+     *
+     * @param domain - the domain
+     * @return - the services
+     */
+    public Collection<RegisteredService> findByDomain(final String domain) {
+        return current.findByDomain(domain);
+    }
+
+    /**
+     * Returns the services of the passed type as determined by {@link CasManagementUtils#getType(RegisteredService)}.
+     *
+     * @param type - the type
+     * @return - the services
+     */
+    public Collection<RegisteredService> findByType(final String type) {
+        return current.findByType(type);
+    }
+
+    /**
+     * Returns one page of services in a domain read from the domain's sorted view in the current snapshot.
+     *
+     * @param domain - the domain
+     * @param sort - the sort key
+     * @param cursor - cursor returned with the previous page, or null for the first page
+     * @param size - maximum number of services to return
+     * @param filter - optional text that must appear in the name, serviceId or description
+     * @return - the page
+     */
+    public Page page(final String domain, final Sort sort, final String cursor, final int size, final String filter) {
+        return current.page(domain, sort, cursor, size, filter);
+    }
+
+    /**
+     * Reserves the next evaluation order at the end of the passed domain. The catalog keeps a counter of the highest
+     * order in each domain so this never needs to count the services in the domain.
+     *
+     * @param domain - the domain
+     * @return - the reserved order
+     */
+    public int nextEvaluationOrder(final String domain) {
+        return nextOrders.computeIfAbsent(domain, k -> new AtomicInteger()).getAndIncrement();
+    }
+
+    /**
+     * Gives back an order reserved for a service that was not saved, unless a later order has been reserved since.
+     *
+     * @param domain - the domain
+     * @param order - the reserved order
+     */
+    public void releaseEvaluationOrder(final String domain, final int order) {
+        val next = nextOrders.get(domain);
+        if (next != null) {
+            next.compareAndSet(order + 1, order);
+        }
+    }
+
+    /**
+     * Returns the domains that currently contain services.
+     *
+     * @return - stream of domains
+     */
+    public Stream<String> getDomains() {
+        return current.getDomains();
+    }
+
+    /**
+     * Returns all services in the catalog.
+     *
+     * @return - the services
+     */
+    public Collection<RegisteredService> getAll() {
+        return current.getAll();
+    }
+
+    /**
+     * Number of services in the catalog.
+     *
+     * @return - the count
+     */
+    public int size() {
+        return current.size();
+    }
+
+    private void publish(final Snapshot snapshot, final Collection<RegisteredService> indexed) {
+        indexed.stream()
+                .map(s -> snapshot.byId.get(s.getId()))
+                .filter(Objects::nonNull)
+                .forEach(e -> nextOrders.computeIfAbsent(e.getDomain(), k -> new AtomicInteger())
+                        .accumulateAndGet(e.getEvalOrder() + 1, Math::max));
+        this.current = snapshot;
+    }
+
+    private static Predicate<RegisteredService> textFilter(final String filter) {
+        if (StringUtils.isBlank(filter)) {
+            return s -> true;
+        }
+        return s -> StringUtils.containsIgnoreCase(s.getName(), filter)
+                || StringUtils.containsIgnoreCase(s.getServiceId(), filter)
+                || StringUtils.containsIgnoreCase(s.getDescription(), filter);
+    }
+
+    private static String encodeCursor(final Sort sort, final Entry entry) {
+        val raw = sort.name() + CURSOR_SEPARATOR + entry.getId() + CURSOR_SEPARATOR + sortKey(sort, entry);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sortKey(final Sort sort, final Entry entry) {
+        switch (sort) {
+            case NAME:
+                return entry.getName();
+            case SERVICE_ID:
+                return entry.getServiceId();
+            default:
+                return String.valueOf(entry.getEvalOrder());
+        }
+    }
+
+    private static Entry decodeCursor(final Sort sort, final String cursor) {
+        try {
+            val raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            val parts = Splitter.on(CURSOR_SEPARATOR).limit(CURSOR_PARTS).splitToList(raw);
+            if (parts.size() != CURSOR_PARTS || !sort.name().equals(parts.get(0))) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            val id = Long.parseLong(parts.get(1));
+            val key = parts.get(2);
+            val order = sort == Sort.EVAL_ORDER ? Integer.parseInt(key) : 0;
+            return new Entry(null, id, order, key, key, null, null);
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor '" + cursor + '\'', e);
+        }
+    }
+
+    private static Comparator<Entry> comparator(final Sort sort) {
+        switch (sort) {
+            case NAME:
+                return BY_NAME;
+            case SERVICE_ID:
+                return BY_SERVICE_ID;
+            default:
+                return BY_EVAL_ORDER;
+        }
+    }
+
+    private static Entry entry(final RegisteredService service) {
+        val serviceId = StringUtils.defaultString(service.getServiceId());
+        return new Entry(service, service.getId(), service.getEvaluationOrder(),
+                StringUtils.defaultString(service.getName()), serviceId,
+                CasManagementUtils.extractDomain(serviceId), CasManagementUtils.getType(service));
+    }
+
+    /**
+     * Keys available for sorting a domain view.
+     */
+    public enum Sort {
+        /**
+         * Sort by evaluation order.
+         */
+        EVAL_ORDER,
+        /**
+         * Sort by service name ignoring case.
+         */
+        NAME,
+        /**
+         * Sort by serviceId.
+         */
+        SERVICE_ID
+    }
+
+    /**
+     * A page of services read from a domain view. The total is the number of services in the domain
+     * before any text filter is applied, and the cursor is null when there are no more services.
+     * The version is the version of the snapshot the page was read from.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Page {
+        private final List<RegisteredService> services;
+        private final String cursor;
+        private final int total;
+        private final long version;
+    }
+
+    /**
+     * Immutable state of the catalog after a write batch.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Snapshot {
+        @Getter
+        private final long version;
+        @Getter
+        private final boolean loaded;
+        private final ShardedMap<Long, Entry> byId;
+        private final ShardedMap<String, Set<Long>> byServiceId;
+        private final ShardedMap<String, DomainView> byDomain;
+        private final ShardedMap<String, Set<Long>> byType;
+
+        /**
+         * Returns the service with the passed id.
+         *
+         * @param id - the id
+         * @return - the service or null
+         */
+        public RegisteredService findById(final long id) {
+            val entry = byId.get(id);
+            return entry != null ? entry.getService() : null;
+        }
+
+        /**
+         * Returns the services whose serviceId is exactly the passed string.
+         *
+         * @param serviceId - the serviceId
+         * @return - the services
+         */
+        public Collection<RegisteredService> findByServiceId(final String serviceId) {
+            return lookup(byServiceId, serviceId);
+        }
+
+        /**
+         * Returns the services in the passed domain ordered by evaluation order.
+         *
+         * @param domain - the domain
+         * @return - the services
+         */
+        public Collection<RegisteredService> findByDomain(final String domain) {
+            val view = byDomain.get(domain);
+            if (view == null) {
+                return List.of();
+            }
+            return view.sorted(Sort.EVAL_ORDER).stream()
+                    .map(Entry::getService)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Returns the services of the passed type.
+         *
+         * @param type - the type
+         * @return - the services
+         */
+        public Collection<RegisteredService> findByType(final String type) {
+            return lookup(byType, type);
+        }
+
+        /**
+         * Returns one page of services in a domain read from the domain's sorted view.
+         * Reading a page costs O(log n + page size) when no filter is applied.
+         *
+         * @param domain - the domain
+         * @param sort - the sort key
+         * @param cursor - cursor returned with the previous page, or null for the first page
+         * @param size - maximum number of services to return
+         * @param filter - optional text that must appear in the name, serviceId or description
+         * @return - the page
+         */
+        public Page page(final String domain, final Sort sort, final String cursor, final int size, final String filter) {
+            val view = byDomain.get(domain);
+            if (view == null) {
+                return new Page(new ArrayList<>(), null, 0, version);
+            }
+            val sorted = view.sorted(sort);
+            var index = 0;
+            if (StringUtils.isNotBlank(cursor)) {
+                val found = Collections.binarySearch(sorted, decodeCursor(sort, cursor), comparator(sort));
+                index = found >= 0 ? found + 1 : -(found + 1);
+            }
+            val matcher = textFilter(filter);
+            val services = new ArrayList<RegisteredService>(size);
+            Entry last = null;
+            while (index < sorted.size() && services.size() < size) {
+                val entry = sorted.get(index++);
+                if (matcher.test(entry.getService())) {
+                    services.add(entry.getService());
+                    last = entry;
+                }
+            }
+            val next = index < sorted.size() && last != null ? encodeCursor(sort, last) : null;
+            return new Page(services, next, sorted.size(), version);
+        }
+
+        /**
+         * Returns the domains that contain services.
+         *
+         * @return - stream of domains
+         */
+        public Stream<String> getDomains() {
+            return byDomain.keys().sorted();
+        }
+
+        /**
+         * Returns all services in the snapshot.
+         *
+         * @return - the services
+         */
+        public Collection<RegisteredService> getAll() {
+            return byId.values()
+                    .map(Entry::getService)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Number of services in the snapshot.
+         *
+         * @return - the count
+         */
+        public int size() {
+            return byId.size();
+        }
+
+        private Collection<RegisteredService> lookup(final ShardedMap<String, Set<Long>> index, final String key) {
+            val ids = index.get(key);
+            if (ids == null) {
+                return List.of();
+            }
+            return ids.stream()
+                    .map(this::findById)
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Builds the next snapshot from the current one. Only the index shards the batch writes are copied and only the
+     * keys it touches get new sets, while shards and domain views the batch does not touch are shared, so a batch
+     * costs about the size of the shards it writes rather than the size of the catalog.
+     */
+    private static class Builder {
+        private final long version;
+        private final ShardedMap.Writer<Long, Entry> byId;
+        private final ShardedMap.Writer<String, Set<Long>> byServiceId;
+        private final ShardedMap.Writer<String, Set<Long>> byType;
+        private final ShardedMap.Writer<String, DomainView> byDomain;
+        private final Set<String> copiedServiceIds = new HashSet<>();
+        private final Set<String> copiedTypes = new HashSet<>();
+        private final Map<String, Map<Long, Entry>> touchedDomains = new HashMap<>();
+
+        Builder(final Snapshot base, final long version) {
+            this.version = version;
+            this.byId = base != null ? base.byId.writer() : ShardedMap.<Long, Entry>empty().writer();
+            this.byServiceId = base != null ? base.byServiceId.writer() : ShardedMap.<String, Set<Long>>empty().writer();
+            this.byType = base != null ? base.byType.writer() : ShardedMap.<String, Set<Long>>empty().writer();
+            this.byDomain = base != null ? base.byDomain.writer() : ShardedMap.<String, DomainView>empty().writer();
+        }
+
+        Snapshot apply(final Collection<RegisteredService> services, final Collection<Long> removed) {
+            removed.forEach(this::unindex);
+            services.forEach(service -> {
+                unindex(service.getId());
+                index(entry(service));
+            });
+            touchedDomains.forEach((domain, entries) -> {
+                if (entries.isEmpty()) {
+                    byDomain.remove(domain);
+                } else {
+                    byDomain.put(domain, new DomainView(entries.values()));
+                }
+            });
+            return new Snapshot(version, true, byId.build(), byServiceId.build(), byDomain.build(), byType.build());
+        }
+
+        private void index(final Entry entry) {
+            byId.put(entry.getId(), entry);
+            writable(byServiceId, copiedServiceIds, entry.getServiceId()).add(entry.getId());
+            writable(byType, copiedTypes, entry.getType()).add(entry.getId());
+            domain(entry.getDomain()).put(entry.getId(), entry);
+        }
+
+        private void unindex(final long id) {
+            val entry = byId.remove(id);
+            if (entry != null) {
+                remove(byServiceId, copiedServiceIds, entry.getServiceId(), id);
+                remove(byType, copiedTypes, entry.getType(), id);
+                domain(entry.getDomain()).remove(id);
+            }
+        }
+
+        private Map<Long, Entry> domain(final String domain) {
+            return touchedDomains.computeIfAbsent(domain, d -> {
+                val view = byDomain.get(d);
+                val entries = new HashMap<Long, Entry>();
+                if (view != null) {
+                    view.sorted(Sort.EVAL_ORDER).forEach(e -> entries.put(e.getId(), e));
+                }
+                return entries;
+            });
+        }
+
+        private static void remove(final ShardedMap.Writer<String, Set<Long>> index, final Set<String> copied,
+                                   final String key, final long id) {
+            val ids = writable(index, copied, key);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+
+        /**
+         * Returns a set for the key that is private to this batch, copying the shared set the first time it is written.
+         */
+        private static Set<Long> writable(final ShardedMap.Writer<String, Set<Long>> index, final Set<String> copied,
+                                          final String key) {
+            if (copied.add(key)) {
+                val ids = index.get(key);
+                index.put(key, ids != null ? new HashSet<>(ids) : new HashSet<>());
+            }
+            var ids = index.get(key);
+            if (ids == null) {
+                ids = new HashSet<>();
+                index.put(key, ids);
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Immutable map split into a fixed number of shards by key hash. Writing goes through a {@link Writer} that copies
+     * the shard array once and each shard the first time it writes to it, so the maps of a new snapshot share every
+     * shard the batch did not write with the previous snapshot.
+     *
+     * @param <K> - key type
+     * @param <V> - value type
+     */
+    private static final class ShardedMap<K, V> {
+        private static final int SHARDS = 256;
+
+        private static final ShardedMap<?, ?> EMPTY = new ShardedMap<>(emptyShards(), 0);
+
+        private final Map<K, V>[] shards;
+        private final int size;
+
+        private ShardedMap(final Map<K, V>[] shards, final int size) {
+            this.shards = shards;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K, V> ShardedMap<K, V> empty() {
+            return (ShardedMap<K, V>) EMPTY;
+        }
+
+        V get(final Object key) {
+            return shards[shard(key)].get(key);
+        }
+
+        int size() {
+            return size;
+        }
+
+        Stream<K> keys() {
+            return Arrays.stream(shards).flatMap(m -> m.keySet().stream());
+        }
+
+        Stream<V> values() {
+            return Arrays.stream(shards).flatMap(m -> m.values().stream());
+        }
+
+        Writer<K, V> writer() {
+            return new Writer<>(shards.clone(), size);
+        }
+
+        private static int shard(final Object key) {
+            val hash = key.hashCode();
+            return (hash ^ (hash >>> 16)) & (SHARDS - 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> Map<K, V>[] emptyShards() {
+            val shards = (Map<K, V>[]) new Map[SHARDS];
+            Arrays.fill(shards, Map.of());
+            return shards;
+        }
+
+        /**
+         * Mutable view over a copy of the shard array used by a single batch.
+         */
+        static final class Writer<K, V> {
+            private final Map<K, V>[] shards;
+            private final boolean[] copied = new boolean[SHARDS];
+            private int size;
+
+            private Writer(final Map<K, V>[] shards, final int size) {
+                this.shards = shards;
+                this.size = size;
+            }
+
+            V get(final Object key) {
+                return shards[shard(key)].get(key);
+            }
+
+            void put(final K key, final V value) {
+                if (writable(shard(key)).put(key, value) == null) {
+                    size++;
+                }
+            }
+
+            V remove(final Object key) {
+                val shard = shard(key);
+                if (!shards[shard].containsKey(key)) {
+                    return null;
+                }
+                size--;
+                return writable(shard).remove(key);
+            }
+
+            ShardedMap<K, V> build() {
+                return new ShardedMap<>(shards, size);
+            }
+
+            private Map<K, V> writable(final int shard) {
+                if (!copied[shard]) {
+                    shards[shard] = new HashMap<>(shards[shard]);
+                    copied[shard] = true;
+                }
+                return shards[shard];
+            }
+        }
+    }
+
+    /**
+     * Catalog entry holding the keys a service was indexed under. The keys are captured at index time
+     * because callers are free to mutate the service instance before saving it again.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final RegisteredService service;
+        private final long id;
+        private final int evalOrder;
+        private final String name;
+        private final String serviceId;
+        private final String domain;
+        private final String type;
+
+        @Setter
+        private volatile RegisteredServiceItem item;
+
+        @Setter
+        private volatile Set<String> domains;
+    }
+
+    /**
+     * Immutable sorted views of the services in a single domain.
+     */
+    private static class DomainView {
+        private final List<Entry> byEvalOrder;
+        private final List<Entry> byName;
+        private final List<Entry> byServiceId;
+
+        DomainView(final Collection<Entry> entries) {
+            this.byEvalOrder = sortedBy(entries, BY_EVAL_ORDER);
+            this.byName = sortedBy(entries, BY_NAME);
+            this.byServiceId = sortedBy(entries, BY_SERVICE_ID);
+        }
+
+        List<Entry> sorted(final Sort sort) {
+            switch (sort) {
+                case NAME:
+                    return byName;
+                case SERVICE_ID:
+                    return byServiceId;
+                default:
+                    return byEvalOrder;
+            }
+        }
+
+        private static List<Entry> sortedBy(final Collection<Entry> entries, final Comparator<Entry> comparator) {
+            val sorted = new ArrayList<>(entries);
+            sorted.sort(comparator);
+            return Collections.unmodifiableList(sorted);
+        }
+    }
+}
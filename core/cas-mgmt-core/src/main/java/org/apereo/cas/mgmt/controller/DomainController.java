@@ -1,8 +1,8 @@
 package org.apereo.cas.mgmt.controller;
 
+import org.apereo.cas.mgmt.ManagementServicesManager;
 import org.apereo.cas.mgmt.MgmtManagerFactory;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
-import org.apereo.cas.services.domain.DefaultDomainAwareServicesManager;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -51,8 +51,10 @@ public class DomainController {
         if (!casUserProfile.isUser()) {
             throw new IllegalAccessException("Insufficient permissions");
         }
-        val manager = managerFactory.from(request, response);
-        return ((DefaultDomainAwareServicesManager) manager).getDomains()
+        val manager = (ManagementServicesManager) managerFactory.from(request, response);
+        val snapshot = manager.snapshot();
+        response.setHeader(ServiceController.CATALOG_VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+        return snapshot.getDomains()
                 .filter(casUserProfile::hasPermission)
                 .map(DomainRpc::new)
                 .collect(Collectors.toList());
@@ -2,15 +2,17 @@ package org.apereo.cas.mgmt.controller;
 
 import org.apereo.cas.mgmt.ManagementServicesManager;
 import org.apereo.cas.mgmt.MgmtManagerFactory;
+import org.apereo.cas.mgmt.ServiceCatalog;
+import org.apereo.cas.mgmt.authentication.CasUserProfile;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
 import org.apereo.cas.mgmt.domain.RegisteredServiceItem;
+import org.apereo.cas.mgmt.domain.ServiceSaveResult;
 import org.apereo.cas.mgmt.util.CasManagementUtils;
 import org.apereo.cas.services.RegexRegisteredService;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.ServicesManager;
-import org.apereo.cas.support.oauth.services.OAuthRegisteredService;
-import org.apereo.cas.support.saml.services.SamlRegisteredService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -32,7 +34,11 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * REST controller for services.
@@ -46,9 +52,17 @@ import java.util.List;
 @Slf4j
 public class ServiceController {
 
+    /**
+     * Response header carrying the version of the catalog snapshot a listing was read from.
+     */
+    public static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+
     private static final String NOT_FOUND_PATTERN = "Service '{}' not found";
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final CasUserProfileFactory casUserProfileFactory;
     private final MgmtManagerFactory<ServicesManager> managerFactory;
+    private final ObjectMapper objectMapper;
 
     /**
      * Gets services.
@@ -68,7 +82,67 @@ public class ServiceController {
             throw new IllegalAccessException("You do not have permission to the domain '" + domain + '\'');
         }
         val manager = (ManagementServicesManager) managerFactory.from(request, response);
-        return manager.getServiceItems(manager.getServicesForDomain(domain).stream());
+        val snapshot = manager.snapshot();
+        response.setHeader(CATALOG_VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+        return manager.getServiceItems(snapshot.findByDomain(domain).stream());
+    }
+
+    /**
+     * Streams one page of services for a domain directly to the response.
+     * The response contains the services, the total number of services in the domain and an opaque cursor that
+     * is passed back to read the next page. The cursor is null once the last page has been returned.
+     *
+     * @param request  - HttpServletRequest
+     * @param response - HttpServletResponse
+     * @param domain   - the domain for which services will be retrieved
+     * @param sort     - sort key, one of evalOrder, name or serviceId
+     * @param cursor   - cursor returned with the previous page
+     * @param size     - number of services per page
+     * @param filter   - text that must appear in the name, serviceId or description
+     * @throws IllegalAccessException - Auth failed
+     * @throws IOException - failed writing the response
+     */
+    @GetMapping("page")
+    public void getServicesPage(final HttpServletRequest request,
+                                final HttpServletResponse response,
+                                final @RequestParam String domain,
+                                final @RequestParam(defaultValue = "evalOrder") String sort,
+                                final @RequestParam(required = false) String cursor,
+                                final @RequestParam(defaultValue = "50") int size,
+                                final @RequestParam(required = false) String filter) throws IllegalAccessException, IOException {
+        val casUserProfile = casUserProfileFactory.from(request, response);
+        if (!casUserProfile.isAdministrator() && !casUserProfile.hasPermission(domain)) {
+            throw new IllegalAccessException("You do not have permission to the domain '" + domain + '\'');
+        }
+        val manager = (ManagementServicesManager) managerFactory.from(request, response);
+        val page = manager.getServicesPage(domain, toSort(sort), cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), filter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(CATALOG_VERSION_HEADER, String.valueOf(page.getVersion()));
+        try (val generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("services");
+            for (val item : manager.getServiceItems(page.getServices().stream())) {
+                generator.writeObject(item);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("total", page.getTotal());
+            generator.writeStringField("cursor", page.getCursor());
+            generator.writeNumberField("version", page.getVersion());
+            generator.writeEndObject();
+        }
+    }
+
+    private static ServiceCatalog.Sort toSort(final String sort) {
+        switch (sort) {
+            case "name":
+                return ServiceCatalog.Sort.NAME;
+            case "serviceId":
+                return ServiceCatalog.Sort.SERVICE_ID;
+            case "evalOrder":
+                return ServiceCatalog.Sort.EVAL_ORDER;
+            default:
+                throw new IllegalArgumentException("Unknown sort '" + sort + '\'');
+        }
     }
 
     /**
@@ -87,9 +161,10 @@ public class ServiceController {
             throw new IllegalAccessException("You do not have permission");
         }
         val manager = (ManagementServicesManager) managerFactory.from(request, response);
-        val services = manager.getAllServices().stream()
-                .filter(s -> s instanceof OAuthRegisteredService)
-                .filter(casUserProfile::hasPermission);
+        val snapshot = manager.snapshot();
+        response.setHeader(CATALOG_VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+        val services = snapshot.findByType(CasManagementUtils.TYPE_OAUTH).stream()
+                .filter(manager.permittedFor(casUserProfile));
         return manager.getServiceItems(services);
     }
 
@@ -109,9 +184,10 @@ public class ServiceController {
             throw new IllegalAccessException("You do not have permission");
         }
         val manager = (ManagementServicesManager) managerFactory.from(request, response);
-        val services = manager.getAllServices().stream()
-                .filter(s -> s instanceof SamlRegisteredService)
-                .filter(casUserProfile::hasPermission);
+        val snapshot = manager.snapshot();
+        response.setHeader(CATALOG_VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+        val services = snapshot.findByType(CasManagementUtils.TYPE_SAML).stream()
+                .filter(manager.permittedFor(casUserProfile));
         return manager.getServiceItems(services);
     }
 
@@ -160,10 +236,93 @@ public class ServiceController {
         }
     }
 
+    /**
+     * Saves many services in one request. Each service is validated, assigned an id and evaluation order if needed and
+     * then all valid services are written as one batch. When a commit message is passed and at least one service was
+     * saved, the files of the saved services are recorded as a single commit. If that commit fails the services stay
+     * saved and their results are reported as UNCOMMITTED with the reason.
+     *
+     * @param request  - HttpServletRequest
+     * @param response - HttpServletResponse
+     * @param services - the services to save
+     * @param commit   - optional commit message
+     * @return - a result for each service in the order they were passed
+     * @throws IllegalAccessException - insufficient permissions
+     */
+    @PostMapping(value = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ServiceSaveResult> saveServices(final HttpServletRequest request,
+                                                final HttpServletResponse response,
+                                                final @RequestBody RegisteredService[] services,
+                                                final @RequestParam(required = false) String commit) throws IllegalAccessException {
+        val casUserProfile = casUserProfileFactory.from(request, response);
+        if (!casUserProfile.isUser()) {
+            throw new IllegalAccessException("You do not have permission");
+        }
+        val results = new ServiceSaveResult[services.length];
+        val accepted = new ArrayList<RegisteredService>();
+        val positions = new ArrayList<Integer>();
+        val ids = new HashSet<Long>();
+        for (var i = 0; i < services.length; i++) {
+            val rejection = validate(services[i], casUserProfile, ids);
+            if (rejection != null) {
+                results[i] = new ServiceSaveResult(i, String.valueOf(services[i].getId()), services[i].getServiceId(),
+                        services[i].getName(), ServiceSaveResult.REJECTED, rejection);
+            } else {
+                accepted.add(services[i]);
+                positions.add(i);
+            }
+        }
+        val manager = (ManagementServicesManager) managerFactory.from(request, response);
+        val saved = manager.saveAll(accepted);
+        for (var i = 0; i < saved.size(); i++) {
+            val result = saved.get(i);
+            result.setIndex(positions.get(i));
+            results[positions.get(i)] = result;
+        }
+        val savedServices = new ArrayList<RegisteredService>();
+        for (var i = 0; i < saved.size(); i++) {
+            if (ServiceSaveResult.SAVED.equals(saved.get(i).getStatus())) {
+                savedServices.add(manager.findServiceBy(Long.parseLong(saved.get(i).getAssignedId())));
+            }
+        }
+        if (StringUtils.isNotBlank(commit) && !savedServices.isEmpty()) {
+            commit(manager, casUserProfile, commit, savedServices, saved);
+        }
+        LOGGER.info("Bulk saved [{}] of [{}] services", savedServices.size(), services.length);
+        return Arrays.asList(results);
+    }
+
+    private static void commit(final ManagementServicesManager manager, final CasUserProfile casUserProfile, final String message,
+                               final List<RegisteredService> services, final List<ServiceSaveResult> results) {
+        try {
+            manager.commit(casUserProfile, message, services);
+        } catch (final Exception e) {
+            LOGGER.error("Saved [{}] services but failed to commit them: [{}]", services.size(), e.getMessage(), e);
+            results.stream()
+                    .filter(r -> ServiceSaveResult.SAVED.equals(r.getStatus()))
+                    .forEach(r -> {
+                        r.setStatus(ServiceSaveResult.UNCOMMITTED);
+                        r.setMessage("Saved but not committed: " + e.getMessage());
+                    });
+        }
+    }
+
+    private static String validate(final RegisteredService service, final CasUserProfile casUserProfile, final Set<Long> ids) {
+        if (StringUtils.isBlank(service.getServiceId())) {
+            return "serviceId is required";
+        }
+        if (!casUserProfile.hasPermission(service)) {
+            return "You do not have permission to the service";
+        }
+        if (service.getId() > -1 && !ids.add(service.getId())) {
+            return "Service id " + service.getId() + " appears more than once in the request";
+        }
+        return null;
+    }
+
     private void save(final RegisteredService service, final ManagementServicesManager manager) {
         if (service.getEvaluationOrder() < 0) {
-            val domain = manager.extractDomain(service.getServiceId());
-            service.setEvaluationOrder(manager.getServicesForDomain(domain).size());
+            service.setEvaluationOrder(manager.nextEvaluationOrder(service.getServiceId()));
         }
 
         if (service.getId() > -1) {
@@ -320,21 +479,46 @@ public class ServiceController {
         if (!casUserProfile.hasPermission(svcs[0].getServiceId())) {
             throw new IllegalAccessException("You do not have permission");
         }
-        val manager = managerFactory.from(request, response);
+        val manager = (ManagementServicesManager) managerFactory.from(request, response);
         val id = svcs[0].getAssignedId();
-        val svcA = manager.findServiceBy(Long.parseLong(id));
-        if (svcA == null) {
+        val foundA = manager.findServiceBy(Long.parseLong(id));
+        if (foundA == null) {
             throw new IllegalArgumentException(MessageFormat.format(NOT_FOUND_PATTERN, id));
         }
         val id2 = svcs[1].getAssignedId();
-        val svcB = manager.findServiceBy(Long.parseLong(id2));
-        if (svcB == null) {
+        val foundB = manager.findServiceBy(Long.parseLong(id2));
+        if (foundB == null) {
             throw new IllegalArgumentException(MessageFormat.format(NOT_FOUND_PATTERN, id2));
         }
+        val svcA = CasManagementUtils.copy(foundA);
+        val svcB = CasManagementUtils.copy(foundB);
         svcA.setEvaluationOrder(svcs[0].getEvalOrder());
         svcB.setEvaluationOrder(svcs[1].getEvalOrder());
-        manager.save(svcA);
-        manager.save(svcB);
+        manager.saveAll(List.of(svcA, svcB));
+    }
+
+    /**
+     * Method will put every service in a domain into the passed order, rewriting only the services whose
+     * evaluation order has to change.
+     *
+     * @param request  the request
+     * @param response the response
+     * @param domain   the domain being reordered
+     * @param ids      ids of every service in the domain in the target order
+     * @return - a result for each service that was rewritten
+     * @throws IllegalAccessException the exception
+     */
+    @PostMapping(value = "/reorder", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ServiceSaveResult> reorder(final HttpServletRequest request,
+                                           final HttpServletResponse response,
+                                           @RequestParam final String domain,
+                                           @RequestBody final Long[] ids) throws IllegalAccessException {
+        val casUserProfile = casUserProfileFactory.from(request, response);
+        if (!casUserProfile.isAdministrator() && !casUserProfile.hasPermission(domain)) {
+            throw new IllegalAccessException("You do not have permission to the domain '" + domain + '\'');
+        }
+        val manager = (ManagementServicesManager) managerFactory.from(request, response);
+        return manager.reorder(domain, Arrays.asList(ids));
     }
 
 }
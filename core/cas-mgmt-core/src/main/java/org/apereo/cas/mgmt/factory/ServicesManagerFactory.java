@@ -4,9 +4,11 @@ import org.apereo.cas.mgmt.ManagementServicesManager;
 import org.apereo.cas.mgmt.MgmtManagerFactory;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.services.resource.RegisteredServiceResourceNamingStrategy;
+import org.apereo.cas.support.events.service.CasRegisteredServicesLoadedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -23,6 +25,7 @@ public class ServicesManagerFactory implements MgmtManagerFactory<ServicesManage
 
     private final ServicesManager servicesManager;
     private final RegisteredServiceResourceNamingStrategy namingStrategy;
+    private ManagementServicesManager managementServicesManager;
 
     /**
      * Method will look up the CasUserProfile for the logged in user and the return the GitServicesManager for
@@ -33,12 +36,35 @@ public class ServicesManagerFactory implements MgmtManagerFactory<ServicesManage
      * @return - GitServicesManager for the logged in user
      */
     public ManagementServicesManager from(final HttpServletRequest request, final HttpServletResponse response) {
-        return new ManagementServicesManager(servicesManager, namingStrategy);
+        return master();
     }
 
+    /**
+     * Returns the single manager wrapping the CAS services manager so its service catalog
+     * is shared across requests instead of being rebuilt for each one.
+     *
+     * @return - ManagementServicesManager
+     */
     @Override
-    public ServicesManager master() {
-        return new ManagementServicesManager(servicesManager, namingStrategy);
+    public synchronized ManagementServicesManager master() {
+        if (managementServicesManager == null) {
+            managementServicesManager = new ManagementServicesManager(servicesManager, namingStrategy);
+        }
+        return managementServicesManager;
+    }
+
+    /**
+     * Rebuilds the shared manager's catalog when the CAS service registry is reloaded, so services the reload added,
+     * changed or removed show up in the next listing. A manager that has not been created yet indexes on first use.
+     *
+     * @param event - the event
+     */
+    @EventListener
+    public synchronized void handleRegisteredServicesLoadedEvent(final CasRegisteredServicesLoadedEvent event) {
+        if (managementServicesManager != null) {
+            LOGGER.debug("CAS service registry reloaded, rebuilding the service catalog");
+            managementServicesManager.reindexAll();
+        }
     }
 
 }
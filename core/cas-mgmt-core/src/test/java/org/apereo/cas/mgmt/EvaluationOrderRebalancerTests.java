@@ -0,0 +1,65 @@
+package org.apereo.cas.mgmt;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for EvaluationOrderRebalancer.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class EvaluationOrderRebalancerTests {
+
+    @Test
+    public void orderedDomainIsUnchanged() {
+        assertTrue(EvaluationOrderRebalancer.rebalance(List.of(1L, 2L, 3L), List.of(0, 5, 9)).isEmpty());
+    }
+
+    @Test
+    public void movedServiceIsFittedIntoGap() {
+        val result = EvaluationOrderRebalancer.rebalance(List.of(1L, 3L, 2L), List.of(0, 10, 5));
+        assertEquals(1, result.size());
+        val order = result.values().iterator().next();
+        if (result.containsKey(3L)) {
+            assertTrue(order > 0 && order < 5);
+        } else {
+            assertTrue(order > 10);
+        }
+    }
+
+    @Test
+    public void crowdedDomainIsRenumberedDensely() {
+        val result = EvaluationOrderRebalancer.rebalance(List.of(3L, 2L, 1L), List.of(2, 1, 0));
+        assertEquals(Map.of(3L, 0, 1L, 2), result);
+    }
+
+    @Test
+    public void servicesWithoutOrderAreAppended() {
+        val result = EvaluationOrderRebalancer.rebalance(List.of(1L, 2L, 3L), List.of(4, -1, -1));
+        assertEquals(Map.of(2L, 5, 3L, 6), result);
+    }
+
+    @Test
+    public void reversedDomainEndsInTargetOrder() {
+        val ids = List.of(5L, 4L, 3L, 2L, 1L);
+        val current = List.of(4, 3, 2, 1, 0);
+        val result = EvaluationOrderRebalancer.rebalance(ids, current);
+        var previous = Integer.MIN_VALUE;
+        for (var i = 0; i < ids.size(); i++) {
+            val order = result.getOrDefault(ids.get(i), current.get(i));
+            assertTrue(order > previous);
+            previous = order;
+        }
+    }
+
+    @Test
+    public void mismatchedSizesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> EvaluationOrderRebalancer.rebalance(List.of(1L, 2L), List.of(0)));
+    }
+}
@@ -0,0 +1,163 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.mgmt.domain.ServiceSaveResult;
+import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.ServicesManager;
+import org.apereo.cas.services.resource.DefaultRegisteredServiceResourceNamingStrategy;
+
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.apereo.cas.mgmt.ServiceCatalogTests.service;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for ManagementServicesManager.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class ManagementServicesManagerTests {
+
+    private final Map<Long, RegisteredService> stored = new LinkedHashMap<>();
+
+    private ServicesManager casManager;
+
+    private ManagementServicesManager manager;
+
+    @BeforeEach
+    public void initialize() {
+        casManager = mock(ServicesManager.class);
+        when(casManager.getAllServices()).thenAnswer(i -> new ArrayList<>(stored.values()));
+        when(casManager.findServiceBy(anyLong())).thenAnswer(i -> stored.get(i.<Long>getArgument(0)));
+        when(casManager.save(any(RegisteredService.class), anyBoolean())).thenAnswer(i -> {
+            val service = i.<RegisteredService>getArgument(0);
+            stored.put(service.getId(), service);
+            return service;
+        });
+        when(casManager.delete(anyLong())).thenAnswer(i -> stored.remove(i.<Long>getArgument(0)));
+        manager = new ManagementServicesManager(casManager, new DefaultRegisteredServiceResourceNamingStrategy());
+    }
+
+    @Test
+    public void loadFromIndexesInOneBatch() {
+        val source = mock(ServicesManager.class);
+        val services = new ArrayList<RegisteredService>();
+        for (var i = 0; i < 50; i++) {
+            services.add(service(i, "https://a.example.org/" + i, i));
+        }
+        when(source.getAllServices()).thenReturn(services);
+        val version = manager.snapshot().getVersion();
+
+        manager.loadFrom(source);
+
+        assertEquals(version + 1, manager.snapshot().getVersion());
+        assertEquals(50, manager.getServicesForDomain("a.example.org").size());
+        assertEquals(50, stored.size());
+    }
+
+    @Test
+    public void saveAllAssignsIdsAndOrders() {
+        stored.put(1L, service(1, "https://a.example.org/.*", 0));
+        val added = service(-1, "https://a.example.org/new", -1);
+
+        val results = manager.saveAll(List.of(added));
+
+        assertEquals(ServiceSaveResult.SAVED, results.get(0).getStatus());
+        val id = Long.parseLong(results.get(0).getAssignedId());
+        assertTrue(id > 0);
+        assertEquals(1, manager.findServiceBy(id).getEvaluationOrder());
+        assertEquals(2, manager.getServicesForDomain("a.example.org").size());
+        assertEquals(-1, added.getId());
+        assertEquals(-1, added.getEvaluationOrder());
+    }
+
+    @Test
+    public void failedSaveGivesBackItsOrder() {
+        stored.put(1L, service(1, "https://a.example.org/.*", 0));
+        manager.snapshot();
+        doThrow(new IllegalStateException("disk full")).when(casManager)
+                .save(argThat(s -> "https://a.example.org/bad".equals(s.getServiceId())), anyBoolean());
+        val failed = service(-1, "https://a.example.org/bad", -1);
+
+        val results = manager.saveAll(List.of(failed, service(-1, "https://a.example.org/good", -1)));
+
+        assertEquals(ServiceSaveResult.FAILED, results.get(0).getStatus());
+        assertEquals(-1, failed.getId());
+        assertEquals(-1, failed.getEvaluationOrder());
+        assertEquals(ServiceSaveResult.SAVED, results.get(1).getStatus());
+        assertEquals(1, manager.findServiceBy(Long.parseLong(results.get(1).getAssignedId())).getEvaluationOrder());
+    }
+
+    @Test
+    public void renameIsPartOfTheBatchUpdate() {
+        stored.put(1L, service(1, "https://a.example.org/.*", 0));
+        val version = manager.snapshot().getVersion();
+        val renamed = service(1, "https://b.example.org/.*", 0);
+        renamed.setName("Renamed");
+
+        manager.saveAll(List.of(renamed, service(2, "https://a.example.org/two", 1)));
+
+        verify(casManager).delete(1L);
+        assertEquals(version + 1, manager.snapshot().getVersion());
+        assertEquals("Renamed", manager.findServiceBy(1).getName());
+        assertEquals(1, manager.getServicesForDomain("a.example.org").size());
+        assertEquals(1, manager.getServicesForDomain("b.example.org").size());
+    }
+
+    @Test
+    public void failedRenameRemovesTheService() {
+        stored.put(1L, service(1, "https://a.example.org/.*", 0));
+        manager.snapshot();
+        doThrow(new IllegalStateException("disk full")).when(casManager).save(argThat(s -> s.getId() == 1), anyBoolean());
+        val renamed = service(1, "https://a.example.org/.*", 0);
+        renamed.setName("Renamed");
+
+        val results = manager.saveAll(List.of(renamed));
+
+        assertEquals(ServiceSaveResult.FAILED, results.get(0).getStatus());
+        assertNull(manager.findServiceBy(1));
+    }
+
+    @Test
+    public void reorderRewritesOnlyMovedServices() {
+        stored.put(1L, service(1, "https://a.example.org/1", 0));
+        stored.put(2L, service(2, "https://a.example.org/2", 10));
+        stored.put(3L, service(3, "https://a.example.org/3", 20));
+
+        val results = manager.reorder("a.example.org", List.of(1L, 3L, 2L));
+
+        assertEquals(1, results.size());
+        val orders = manager.getServicesForDomain("a.example.org").stream()
+                .map(RegisteredService::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(1L, 3L, 2L), orders);
+    }
+
+    @Test
+    public void reorderRejectsDuplicateIds() {
+        stored.put(1L, service(1, "https://a.example.org/1", 0));
+        stored.put(2L, service(2, "https://a.example.org/2", 1));
+        stored.put(3L, service(3, "https://a.example.org/3", 2));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.reorder("a.example.org", List.of(1L, 1L, 2L)));
+    }
+
+    @Test
+    public void reorderRejectsMissingAndForeignIds() {
+        stored.put(1L, service(1, "https://a.example.org/1", 0));
+        stored.put(2L, service(2, "https://a.example.org/2", 1));
+        stored.put(3L, service(3, "https://b.example.org/3", 0));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.reorder("a.example.org", List.of(2L)));
+        assertThrows(IllegalArgumentException.class, () -> manager.reorder("a.example.org", List.of(2L, 3L)));
+    }
+}
@@ -0,0 +1,176 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+import org.apereo.cas.services.RegexRegisteredService;
+import org.apereo.cas.services.RegisteredService;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ServiceCatalog.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class ServiceCatalogTests {
+
+    @Test
+    public void reloadIndexesEveryService() {
+        val catalog = new ServiceCatalog();
+        assertFalse(catalog.isLoaded());
+        catalog.reload(LongStream.range(0, 1000)
+                .mapToObj(i -> service(i, "https://host" + (i % 10) + ".example.org/.*", (int) i))
+                .collect(Collectors.toList()));
+        assertTrue(catalog.isLoaded());
+        assertEquals(1000, catalog.size());
+        assertEquals(10, catalog.getDomains().count());
+        assertEquals(100, catalog.findByDomain("host3.example.org").size());
+        assertEquals(1000, catalog.findByType(CasManagementUtils.TYPE_CAS).size());
+        assertNotNull(catalog.findById(999));
+    }
+
+    @Test
+    public void snapshotsAreNotChangedByLaterBatches() {
+        val catalog = new ServiceCatalog();
+        catalog.reload(List.of(service(1, "https://a.example.org/.*", 0), service(2, "https://b.example.org/.*", 0)));
+        val before = catalog.snapshot();
+
+        catalog.update(List.of(service(3, "https://a.example.org/.*", 1)), List.of(2L));
+        val after = catalog.snapshot();
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(2, before.size());
+        assertNotNull(before.findById(2));
+        assertNull(before.findById(3));
+        assertEquals(1, before.findByDomain("a.example.org").size());
+        assertEquals(List.of("a.example.org", "b.example.org"), before.getDomains().collect(Collectors.toList()));
+
+        assertEquals(2, after.size());
+        assertNull(after.findById(2));
+        assertEquals(2, after.findByDomain("a.example.org").size());
+        assertEquals(List.of("a.example.org"), after.getDomains().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void putReplacesEveryIndexOfAService() {
+        val catalog = new ServiceCatalog();
+        catalog.reload(List.of(service(1, "https://a.example.org/.*", 0)));
+        catalog.put(service(1, "https://b.example.org/app", 0));
+
+        assertEquals(1, catalog.size());
+        assertTrue(catalog.findByDomain("a.example.org").isEmpty());
+        assertEquals(1, catalog.findByDomain("b.example.org").size());
+        assertTrue(catalog.findByServiceId("https://a.example.org/.*").isEmpty());
+        assertEquals(1, catalog.findByServiceId("https://b.example.org/app").size());
+    }
+
+    @Test
+    public void emptyBatchKeepsTheVersion() {
+        val catalog = new ServiceCatalog();
+        catalog.reload(List.of(service(1, "https://a.example.org/.*", 0)));
+        val version = catalog.getVersion();
+        catalog.update(List.of(), List.of());
+        assertEquals(version, catalog.getVersion());
+        catalog.remove(1);
+        assertEquals(version + 1, catalog.getVersion());
+        assertEquals(0, catalog.size());
+        assertEquals(0, catalog.getDomains().count());
+    }
+
+    @Test
+    public void nextEvaluationOrderFollowsTheHighestOrder() {
+        val catalog = new ServiceCatalog();
+        catalog.reload(List.of(service(1, "https://a.example.org/.*", 4), service(2, "https://a.example.org/x", 9)));
+        assertEquals(10, catalog.nextEvaluationOrder("a.example.org"));
+        assertEquals(11, catalog.nextEvaluationOrder("a.example.org"));
+        assertEquals(0, catalog.nextEvaluationOrder("b.example.org"));
+    }
+
+    @Test
+    public void pagesFollowCursorsToTheEnd() {
+        val catalog = domainOf(25);
+        val seen = new ArrayList<Long>();
+        String cursor = null;
+        do {
+            val page = catalog.page("a.example.org", ServiceCatalog.Sort.EVAL_ORDER, cursor, 10, null);
+            assertEquals(25, page.getTotal());
+            page.getServices().forEach(s -> seen.add(s.getId()));
+            cursor = page.getCursor();
+        } while (cursor != null);
+        assertEquals(LongStream.range(0, 25).boxed().collect(Collectors.toList()), seen);
+    }
+
+    @Test
+    public void cursorResumesAfterItsServiceWhenTheServiceIsRemoved() {
+        val catalog = domainOf(10);
+        val first = catalog.page("a.example.org", ServiceCatalog.Sort.NAME, null, 3, null);
+        val last = first.getServices().get(2).getId();
+        catalog.remove(last);
+
+        val next = catalog.page("a.example.org", ServiceCatalog.Sort.NAME, first.getCursor(), 3, null);
+
+        val previousName = first.getServices().get(2).getName();
+        assertFalse(next.getServices().isEmpty());
+        next.getServices().forEach(s -> assertTrue(s.getName().compareToIgnoreCase(previousName) > 0));
+    }
+
+    @Test
+    public void pagesSortedByServiceIdAreOrdered() {
+        val catalog = domainOf(12);
+        val page = catalog.page("a.example.org", ServiceCatalog.Sort.SERVICE_ID, null, 12, null);
+        val serviceIds = page.getServices().stream().map(RegisteredService::getServiceId).collect(Collectors.toList());
+        assertEquals(serviceIds.stream().sorted().collect(Collectors.toList()), serviceIds);
+        assertNull(page.getCursor());
+    }
+
+    @Test
+    public void filterAppliesWithinTheDomain() {
+        val catalog = domainOf(20);
+        val page = catalog.page("a.example.org", ServiceCatalog.Sort.EVAL_ORDER, null, 50, "service 1");
+        assertEquals(11, page.getServices().size());
+        assertEquals(20, page.getTotal());
+    }
+
+    @Test
+    public void cursorOfAnotherSortIsRejected() {
+        val catalog = domainOf(5);
+        val cursor = catalog.page("a.example.org", ServiceCatalog.Sort.NAME, null, 2, null).getCursor();
+        assertThrows(IllegalArgumentException.class,
+            () -> catalog.page("a.example.org", ServiceCatalog.Sort.EVAL_ORDER, cursor, 2, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> catalog.page("a.example.org", ServiceCatalog.Sort.NAME, "not a cursor", 2, null));
+    }
+
+    @Test
+    public void unknownDomainHasAnEmptyPage() {
+        val page = domainOf(1).page("b.example.org", ServiceCatalog.Sort.NAME, null, 10, null);
+        assertTrue(page.getServices().isEmpty());
+        assertEquals(0, page.getTotal());
+        assertNull(page.getCursor());
+    }
+
+    private static ServiceCatalog domainOf(final int count) {
+        val catalog = new ServiceCatalog();
+        catalog.reload(LongStream.range(0, count)
+                .mapToObj(i -> service(i, "https://a.example.org/" + (char) ('z' - i), (int) i))
+                .collect(Collectors.toList()));
+        return catalog;
+    }
+
+    static RegisteredService service(final long id, final String serviceId, final int evalOrder) {
+        val service = new RegexRegisteredService();
+        service.setId(id);
+        service.setName("Service " + id);
+        service.setServiceId(serviceId);
+        service.setEvaluationOrder(evalOrder);
+        return service;
+    }
+}
@@ -0,0 +1,63 @@
+package org.apereo.cas.mgmt.factory;
+
+import org.apereo.cas.services.RegexRegisteredService;
+import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.ServicesManager;
+import org.apereo.cas.services.resource.DefaultRegisteredServiceResourceNamingStrategy;
+import org.apereo.cas.support.events.service.CasRegisteredServicesLoadedEvent;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for ServicesManagerFactory.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class ServicesManagerFactoryTests {
+
+    @Test
+    public void masterIsShared() {
+        val factory = new ServicesManagerFactory(casManager(new ArrayList<>()), new DefaultRegisteredServiceResourceNamingStrategy());
+        assertSame(factory.master(), factory.master());
+    }
+
+    @Test
+    public void catalogIsRebuiltWhenRegistryReloads() {
+        val services = new ArrayList<RegisteredService>();
+        services.add(service(1, "https://one.example.org/.*"));
+        val factory = new ServicesManagerFactory(casManager(services), new DefaultRegisteredServiceResourceNamingStrategy());
+        val master = factory.master();
+        assertNotNull(master.findServiceBy(1));
+        assertNull(master.findServiceBy(2));
+
+        services.clear();
+        services.add(service(2, "https://two.example.org/.*"));
+        factory.handleRegisteredServicesLoadedEvent(new CasRegisteredServicesLoadedEvent(this, services));
+
+        assertNull(master.findServiceBy(1));
+        assertNotNull(master.findServiceBy(2));
+        assertEquals(1, master.getServicesForDomain("two.example.org").size());
+    }
+
+    private static ServicesManager casManager(final List<RegisteredService> services) {
+        val manager = mock(ServicesManager.class);
+        when(manager.getAllServices()).thenAnswer(i -> new ArrayList<>(services));
+        return manager;
+    }
+
+    private static RegisteredService service(final long id, final String serviceId) {
+        val service = new RegexRegisteredService();
+        service.setId(id);
+        service.setName("Service " + id);
+        service.setServiceId(serviceId);
+        return service;
+    }
+}
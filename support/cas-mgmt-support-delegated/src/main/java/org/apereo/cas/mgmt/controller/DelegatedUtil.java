@@ -18,10 +18,10 @@ public class DelegatedUtil {
     /**
      * Method creates a branch object to be returned to the client.
      *
-     * @param r - BranchMap
+     * @param r - BranchSummary
      * @return - BranchData
      */
-    public static BranchData createBranch(final GitUtil.BranchMap r) {
+    public static BranchData createBranch(final GitUtil.BranchSummary r) {
         val branch = new BranchData();
         branch.setName(r.getName());
         branch.setMsg(r.getFullMessage());
@@ -37,11 +37,11 @@ public class DelegatedUtil {
     /**
      * Method will filter refs to only the statuses on Options.
      *
-     * @param r       - BranchMap
+     * @param r       - BranchSummary
      * @param options - 0:Submitted, 1:Accepted, 2:Rejected
      * @return - true of the pull should be included
      */
-    public static boolean filterPulls(final GitUtil.BranchMap r, final boolean[] options) {
+    public static boolean filterPulls(final GitUtil.BranchSummary r, final boolean[] options) {
         if (r.getName().equals("refs/heads/master")) {
             return false;
         }
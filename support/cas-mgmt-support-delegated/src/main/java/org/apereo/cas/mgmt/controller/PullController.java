@@ -74,12 +74,11 @@ public class PullController extends AbstractVersionControlController {
                                      final @RequestBody boolean[] options) throws VersionControlException {
         isAdministrator(request, response);
         try (GitUtil git = repositoryFactory.masterRepository()) {
-            return git.branches()
-                    .map(git::mapBranches)
+            return git.branchSummaries().stream()
                     .filter(r -> DelegatedUtil.filterPulls(r, options))
                     .map(DelegatedUtil::createBranch)
                     .collect(toList());
-        } catch (final GitAPIException ex) {
+        } catch (final IOException ex) {
             LOGGER.error(ex.getMessage(), ex);
             throw new VersionControlException();
         }
@@ -101,9 +101,7 @@ public class SubmitController {
                                     final HttpServletResponse response) {
         val user = casUserProfileFactory.from(request, response);
         try (GitUtil git = repositoryFactory.masterRepository()) {
-            return git.branches()
-                    .filter(r -> r.getName().contains('/' + user.getId() + '_'))
-                    .map(git::mapBranches)
+            return git.branchSummaries(r -> r.getName().contains('/' + user.getId() + '_')).stream()
                     .map(DelegatedUtil::createBranch)
                     .collect(toList());
         }
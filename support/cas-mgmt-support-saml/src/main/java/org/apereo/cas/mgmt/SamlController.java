@@ -3,7 +3,9 @@ package org.apereo.cas.mgmt;
 import org.apereo.cas.configuration.CasManagementConfigurationProperties;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
 import org.apereo.cas.mgmt.domain.FormData;
+import org.apereo.cas.mgmt.util.CasManagementUtils;
 import org.apereo.cas.services.PrincipalAttributeRegisteredServiceUsernameProvider;
+import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.ReturnAllowedAttributeReleasePolicy;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.support.saml.OpenSamlConfigBean;
@@ -99,9 +101,8 @@ public class SamlController {
         this.urlMetadataResolver = urlMetadataResolver;
         try {
             val manager = (ManagementServicesManager) managerFactory.master();
-            this.entities = manager.getAllServices().stream()
-                    .filter(s -> s instanceof SamlRegisteredService)
-                    .map(s -> s.getServiceId())
+            this.entities = manager.getServicesByType(CasManagementUtils.TYPE_SAML).stream()
+                    .map(RegisteredService::getServiceId)
                     .collect(Collectors.toList());
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
@@ -94,7 +94,7 @@ public class LuceneSearch {
             val manager = (ManagementServicesManager) mgmtManagerFactory.from(request, response);
             try (val memoryIndex = new MMapDirectory(Paths.get(managementProperties.getLuceneIndexDir() + "/" + casUserProfile.getUsername()))) {
                 val docs = manager.getAllServices().stream()
-                        .filter(casUserProfile::hasPermission)
+                        .filter(manager.permittedFor(casUserProfile))
                         .map(CasManagementUtils::toJson)
                         .map(JsonObject::readHjson)
                         .map(r -> createDocument(r.asObject(), fields))
@@ -0,0 +1,82 @@
+package org.apereo.cas.mgmt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded cache of formatted diffs between two blobs, keyed by the blob ids and the diff algorithm. Blob ids name
+ * their content, so an entry never goes stale and one cache can be shared by every repository. Entries are evicted
+ * least recently used first once their total size exceeds the configured number of bytes.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class DiffCache {
+
+    private final Cache<Key, byte[]> diffs;
+
+    public DiffCache(final long maximumBytes) {
+        this.diffs = CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Key k, byte[] v) -> v.length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the formatted diff between the blobs, formatting it on a miss. The returned array is shared and must
+     * not be modified.
+     *
+     * @param oldId - the old blob id
+     * @param newId - the new blob id
+     * @param algorithm - the diff algorithm
+     * @param formatter - formats the diff on a miss
+     * @return - the formatted diff
+     */
+    @SneakyThrows
+    public byte[] get(final AnyObjectId oldId, final AnyObjectId newId,
+                      final DiffAlgorithm.SupportedAlgorithm algorithm, final Callable<byte[]> formatter) {
+        try {
+            return diffs.get(new Key(oldId.copy(), newId.copy(), algorithm), formatter);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns hit, miss, load and eviction counts for the cache.
+     *
+     * @return - the stats
+     */
+    public CacheStats stats() {
+        return diffs.stats();
+    }
+
+    /**
+     * Returns the number of diffs in the cache.
+     *
+     * @return - the size
+     */
+    public long size() {
+        return diffs.size();
+    }
+
+    @Value
+    private static class Key {
+        ObjectId oldId;
+        ObjectId newId;
+        DiffAlgorithm.SupportedAlgorithm algorithm;
+    }
+}
@@ -4,6 +4,7 @@ import org.apereo.cas.mgmt.authentication.CasUserProfile;
 import org.apereo.cas.mgmt.domain.Commit;
 import org.apereo.cas.mgmt.domain.History;
 import org.apereo.cas.mgmt.exception.NoDifferenceException;
+import org.apereo.cas.services.RegisteredService;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
@@ -23,12 +24,15 @@ import org.eclipse.jgit.api.CreateBranchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.EmptyCommitException;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
@@ -38,13 +42,17 @@ import org.eclipse.jgit.merge.MergeStrategy;
 import org.eclipse.jgit.notes.Note;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -58,12 +66,20 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -91,9 +107,59 @@ public class GitUtil implements AutoCloseable {
      * The previous commit in a branch before the current.
      */
     public static final String TOP_MINUS_1 = "~1^{tree}";
+    /**
+     * Message of the empty commit made when the services repository is created.
+     */
+    public static final String CREATED_MESSAGE = "Created";
+
+    private static final int MAX_IDLE_READERS = 4;
+
+    private static final String COMMITS_CURSOR = "c:";
+
+    private static final String PATH_CURSOR = "p:";
 
     private final Git git;
 
+    private final NoteStateIndex noteStates = new NoteStateIndex();
+
+    /**
+     * Path history index shared with the other GitUtils opened on the same repository, or null to load one for this
+     * GitUtil on first use.
+     */
+    @Setter
+    private PathHistoryIndex pathHistory;
+
+    /**
+     * Status cache shared with the other GitUtils opened on the same repository, or null to scan on every call.
+     */
+    @Setter
+    private StatusCache statusCache;
+
+    /**
+     * Cache of formatted diffs between blobs shared by every GitUtil, or null to format on every call.
+     */
+    @Setter
+    private DiffCache diffCache;
+
+    /**
+     * Cache of service metadata by blob shared by every GitUtil, or null to parse on every call.
+     */
+    @Setter
+    private ServiceMetadataCache metadataCache;
+
+    /**
+     * Idle readers kept for reuse, so a request that reads many objects keeps the same inflater and delta base
+     * cache. Closing this GitUtil closes them.
+     */
+    private final Queue<ObjectReader> readers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True if this GitUtil is shared across requests, in which case {@link #close()} leaves it open and only
+     * {@link #release()} closes it.
+     */
+    @Setter
+    private boolean shared;
+
     public GitUtil(final String path) {
         var repositoryMustExist = true;
         val gitDir = new File(path);
@@ -119,6 +185,115 @@ public class GitUtil implements AutoCloseable {
         return StreamSupport.stream(git.log().setMaxCount(n).call().spliterator(), false);
     }
 
+    /**
+     * Passes one page of the commits reachable from HEAD, newest first, to the consumer and returns the cursor of the
+     * next page. A commit is passed only if its committer name or email contains the author, when given, and its
+     * commit time lies in [since, until), when given. The commit that created the repository is never passed. When a path is given only the commits that changed it are read,
+     * from the path history index. Otherwise the cursor holds the commits the walk had queued when the page filled,
+     * so the next page resumes from them instead of walking again from HEAD.
+     *
+     * @param cursor   - cursor returned with the previous page, or null for the first page
+     * @param size     - maximum number of commits to pass
+     * @param path     - path the commits must have changed, or null
+     * @param author   - text the committer name or email must contain, or null
+     * @param since    - earliest commit time in seconds, or null
+     * @param until    - commit time in seconds the commits must be before, or null
+     * @param consumer - receives the commits
+     * @return - cursor of the next page, or null if there are no more commits
+     * @throws IOException - failed
+     */
+    public String commits(final String cursor, final int size, final String path, final String author,
+                          final Long since, final Long until, final Consumer<RevCommit> consumer) throws IOException {
+        if (isUndefined()) {
+            return null;
+        }
+        val matches = (Predicate<RevCommit>) c -> !CREATED_MESSAGE.equals(c.getFullMessage())
+                && (author == null
+                || StringUtils.containsIgnoreCase(c.getCommitterIdent().getName(), author)
+                || StringUtils.containsIgnoreCase(c.getCommitterIdent().getEmailAddress(), author))
+                && (since == null || c.getCommitTime() >= since)
+                && (until == null || c.getCommitTime() < until);
+        if (StringUtils.isNotBlank(path)) {
+            return pathCommits(path, cursor, size, matches, consumer);
+        }
+        val starts = cursor == null ? null : decodeCursor(cursor, COMMITS_CURSOR);
+        return withReader(reader -> {
+            try (val walk = new RevWalk(reader)) {
+                walk.sort(RevSort.COMMIT_TIME_DESC);
+                if (starts == null) {
+                    val head = git.getRepository().resolve(Constants.HEAD);
+                    if (head == null) {
+                        return null;
+                    }
+                    walk.markStart(walk.parseCommit(head));
+                } else {
+                    for (val id : Splitter.on(',').split(starts)) {
+                        walk.markStart(walk.parseCommit(ObjectId.fromString(id)));
+                    }
+                }
+                val walked = new HashSet<ObjectId>();
+                val pending = new LinkedHashSet<ObjectId>();
+                var passed = 0;
+                RevCommit commit;
+                while (passed < size && (commit = walk.next()) != null) {
+                    pending.remove(commit);
+                    walked.add(commit.copy());
+                    for (val parent : commit.getParents()) {
+                        if (!walked.contains(parent)) {
+                            pending.add(parent.copy());
+                        }
+                    }
+                    if (since != null && commit.getCommitTime() < since) {
+                        return null;
+                    }
+                    if (matches.test(commit)) {
+                        consumer.accept(commit);
+                        passed++;
+                    }
+                }
+                return pending.isEmpty()
+                    ? null
+                    : encodeCursor(COMMITS_CURSOR, pending.stream().map(ObjectId::name).collect(Collectors.joining(",")));
+            }
+        });
+    }
+
+    private String pathCommits(final String path, final String cursor, final int size,
+                               final Predicate<RevCommit> matches, final Consumer<RevCommit> consumer) throws IOException {
+        val entries = pathHistory().entries(git.getRepository(), path);
+        val index = cursor == null ? 0 : Integer.parseInt(decodeCursor(cursor, PATH_CURSOR));
+        return withReader(reader -> {
+            try (val walk = new RevWalk(reader)) {
+                var passed = 0;
+                var next = index;
+                while (passed < size && next < entries.size()) {
+                    val commit = walk.parseCommit(entries.get(next++).getCommit());
+                    if (matches.test(commit)) {
+                        consumer.accept(commit);
+                        passed++;
+                    }
+                }
+                return next < entries.size() ? encodeCursor(PATH_CURSOR, String.valueOf(next)) : null;
+            }
+        });
+    }
+
+    private static String encodeCursor(final String kind, final String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((kind + value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(final String cursor, final String kind) {
+        try {
+            val raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(kind)) {
+                throw new IllegalArgumentException("Cursor does not match the query");
+            }
+            return raw.substring(kind.length());
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor '" + cursor + '\'', e);
+        }
+    }
+
     /**
      * Gets repository.
      *
@@ -161,6 +336,7 @@ public class GitUtil implements AutoCloseable {
             .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK)
             .setStartPoint(startPoint)
             .call();
+        invalidateStatus();
     }
 
     /**
@@ -171,6 +347,7 @@ public class GitUtil implements AutoCloseable {
      */
     public void cherryPickCommit(final RevCommit commit) throws GitAPIException {
         git.cherryPick().include(commit).setNoCommit(true).call();
+        invalidateStatus();
     }
 
     /**
@@ -201,7 +378,10 @@ public class GitUtil implements AutoCloseable {
      */
     public RevCommit commit(final String message) throws GitAPIException {
         if (!isUndefined()) {
-            return git.commit().setAll(true).setMessage(message).call();
+            val commit = git.commit().setAll(true).setMessage(message).call();
+            invalidateStatus();
+            indexHistory();
+            return commit;
         }
         return null;
     }
@@ -215,11 +395,40 @@ public class GitUtil implements AutoCloseable {
      * @throws GitAPIException - failed.
      */
     public RevCommit commit(final CasUserProfile user, final String msg) throws GitAPIException {
-        return git.commit()
+        val commit = git.commit()
             .setAll(true)
             .setCommitter(getCommitterId(user))
             .setMessage(msg)
             .call();
+        invalidateStatus();
+        indexHistory();
+        return commit;
+    }
+
+    /**
+     * Commits only the passed paths, taking their content from the working tree, so other working changes are left
+     * uncommitted. Paths that were deleted from the working tree are removed in the commit.
+     *
+     * @param user - the user
+     * @param msg - commit message
+     * @param paths - repository paths to commit
+     * @return - the new commit, or null if none of the paths changed
+     * @throws GitAPIException - failed
+     */
+    public RevCommit commit(final CasUserProfile user, final String msg, final Collection<String> paths) throws GitAPIException {
+        val command = git.commit()
+            .setCommitter(getCommitterId(user))
+            .setMessage(msg);
+        paths.forEach(command::setOnly);
+        try {
+            val commit = command.call();
+            invalidateStatus();
+            indexHistory();
+            return commit;
+        } catch (final EmptyCommitException e) {
+            LOGGER.debug("None of [{}] changed, nothing to commit", paths);
+            return null;
+        }
     }
 
     /**
@@ -233,10 +442,13 @@ public class GitUtil implements AutoCloseable {
      */
     public RevCommit commitSingleFile(final CasUserProfile user, final String file, final String msg) throws GitAPIException {
         git.add().addFilepattern(file).call();
-        return git.commit()
+        val commit = git.commit()
                 .setCommitter(getCommitterId(user))
                 .setMessage(msg)
                 .call();
+        invalidateStatus();
+        indexHistory();
+        return commit;
     }
 
     /**
@@ -249,6 +461,7 @@ public class GitUtil implements AutoCloseable {
         git.checkout()
             .setName(ref)
             .call();
+        invalidateStatus();
     }
 
     /**
@@ -263,6 +476,7 @@ public class GitUtil implements AutoCloseable {
             .setStartPoint(ref)
             .addPath(path)
             .call();
+        invalidateStatus();
     }
 
     /**
@@ -271,23 +485,73 @@ public class GitUtil implements AutoCloseable {
      * @throws GitAPIException - failed.
      */
     public void addWorkingChanges() throws GitAPIException {
-        val status = git.status().call();
-        status.getUntracked().forEach(this::addFile);
+        status().getUntracked().forEach(this::addFile);
     }
 
     /**
-     * Status.
+     * Status. Served from the status cache when one is set.
      *
      * @return the status
      * @throws GitAPIException the exception
      */
     public Status status() throws GitAPIException {
         if (!isUndefined()) {
-            return git.status().call();
+            if (statusCache == null) {
+                return git.status().call();
+            }
+            try {
+                return statusCache.status(git.getRepository());
+            } catch (final IOException e) {
+                throw new JGitInternalException(e.getMessage(), e);
+            }
         }
         return null;
     }
 
+    /**
+     * Returns the blob id of each file at the top level of the tree of the passed revision.
+     *
+     * @param revision - the revision
+     * @return - map of path to blob id
+     * @throws IOException - failed
+     */
+    public Map<String, ObjectId> treeBlobs(final String revision) throws IOException {
+        val blobs = new HashMap<String, ObjectId>();
+        val tree = isUndefined() ? null : git.getRepository().resolve(revision + TOP);
+        if (tree == null) {
+            return blobs;
+        }
+        return withReader(reader -> {
+            try (val walk = new TreeWalk(reader)) {
+                walk.addTree(tree);
+                walk.setRecursive(false);
+                while (walk.next()) {
+                    if (!walk.isSubtree()) {
+                        blobs.put(walk.getPathString(), walk.getObjectId(0));
+                    }
+                }
+            }
+            return blobs;
+        });
+    }
+
+    /**
+     * Returns the blob id of each file in the working tree that is unchanged from HEAD.
+     *
+     * @return - map of path to blob id
+     * @throws GitAPIException - failed
+     * @throws IOException - failed
+     */
+    public Map<String, ObjectId> cleanBlobs() throws GitAPIException, IOException {
+        val blobs = treeBlobs(Constants.HEAD);
+        val status = status();
+        if (status != null) {
+            blobs.keySet().removeAll(status.getUncommittedChanges());
+            blobs.keySet().removeAll(status.getUntracked());
+        }
+        return blobs;
+    }
+
     /**
      * Scans the working dir for active changes and returns a list of differences.
      *
@@ -300,9 +564,12 @@ public class GitUtil implements AutoCloseable {
 
         val workTreeIterator = new FileTreeIterator(git.getRepository());
         val oldTreeIter = new CanonicalTreeParser();
-        try (ObjectReader reader = git.getRepository().newObjectReader()) {
-            oldTreeIter.reset(reader, git.getRepository().resolve("HEAD^{tree}"));
-            val formatter = new DiffFormatter(new ByteArrayOutputStream());
+        try (val formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            withReader(reader -> {
+                oldTreeIter.reset(reader, git.getRepository().resolve("HEAD^{tree}"));
+                return oldTreeIter;
+            });
+            // the working tree side needs the repository's attributes, so this formatter reads through its own reader
             formatter.setRepository(git.getRepository());
             return formatter.scan(oldTreeIter, workTreeIterator);
         } catch (final Exception e) {
@@ -312,13 +579,20 @@ public class GitUtil implements AutoCloseable {
     }
 
     /**
-     * Returns the content of the file as a String that is represented by the passed object id.
+     * Returns the content of the file as a String that is represented by the passed object id. When a status cache is
+     * set, modified and untracked files are found through its blob index instead of hashing the working tree.
      *
      * @param id - ObjectId of the file in the repository
      * @return - Contents of the object as String.
      * @throws IOException - failed
      */
     public String readFormWorkingTree(final ObjectId id) throws IOException {
+        if (statusCache != null) {
+            val path = statusCache.workingTreePath(git.getRepository(), id);
+            if (path != null) {
+                return FileUtils.readFileToString(new File(git.getRepository().getWorkTree(), path), Charset.defaultCharset());
+            }
+        }
         val workTreeIterator = new FileTreeIterator(git.getRepository());
         while (!workTreeIterator.eof() && !workTreeIterator.getEntryObjectId().equals(id)) {
             workTreeIterator.next(1);
@@ -360,8 +634,57 @@ public class GitUtil implements AutoCloseable {
      */
     @SuppressWarnings("DefaultCharset")
     public String readObject(final ObjectId id) throws IOException {
-        try (val reader = git.getRepository().newObjectReader()) {
-            return reader.has(id) ? new String(reader.open(id).getBytes()) : readFormWorkingTree(id);
+        return withReader(reader -> reader.has(id) ? new String(reader.open(id).getBytes()) : readFormWorkingTree(id));
+    }
+
+    /**
+     * Returns the raw content of a blob in the repository.
+     *
+     * @param id - ObjectId of the blob
+     * @return - the content
+     * @throws IOException - failed.
+     */
+    public byte[] readBytes(final ObjectId id) throws IOException {
+        return withReader(reader -> reader.open(id, Constants.OBJ_BLOB).getBytes());
+    }
+
+    /**
+     * Returns the name, id and type of the service stored in the blob, reading the blob only on a cache miss.
+     *
+     * @param id - ObjectId of the blob
+     * @return - the metadata
+     * @throws IOException - failed.
+     */
+    public ServiceMetadata serviceMetadata(final ObjectId id) throws IOException {
+        return serviceMetadata(id, () -> readObject(id));
+    }
+
+    /**
+     * Returns the name, id and type of the service stored in the blob, calling json for its content only on a cache
+     * miss.
+     *
+     * @param id - ObjectId of the blob
+     * @param json - reads the content of the blob
+     * @return - the metadata
+     * @throws IOException - failed.
+     */
+    @SneakyThrows
+    public ServiceMetadata serviceMetadata(final ObjectId id, final Callable<String> json) throws IOException {
+        if (metadataCache == null) {
+            return ServiceMetadata.parse(json.call());
+        }
+        return metadataCache.get(id, json);
+    }
+
+    /**
+     * Adds the metadata of a service that has already been parsed from the blob to the cache.
+     *
+     * @param id - ObjectId of the blob
+     * @param service - the service
+     */
+    public void cacheMetadata(final ObjectId id, final RegisteredService service) {
+        if (metadataCache != null) {
+            metadataCache.put(id, ServiceMetadata.of(service));
         }
     }
 
@@ -376,6 +699,8 @@ public class GitUtil implements AutoCloseable {
             .setCommit(true)
             .include(ObjectId.fromString(branchId))
             .call();
+        invalidateStatus();
+        indexHistory();
     }
 
     /**
@@ -386,8 +711,15 @@ public class GitUtil implements AutoCloseable {
      * @throws IOException - failed.
      */
     public RevCommit getCommit(final String id) throws IOException {
-        return new RevWalk(git.getRepository())
-            .parseCommit(ObjectId.fromString(id));
+        return parseCommit(ObjectId.fromString(id));
+    }
+
+    private RevCommit parseCommit(final ObjectId id) throws IOException {
+        return withReader(reader -> {
+            try (val walk = new RevWalk(reader)) {
+                return walk.parseCommit(id);
+            }
+        });
     }
 
     /**
@@ -505,13 +837,48 @@ public class GitUtil implements AutoCloseable {
      *
      * @param path - the file path
      * @return - List of History objects
-     * @throws GitAPIException - failed.
+     * @throws IOException - failed.
      */
-    public List<History> history(final String path) throws GitAPIException {
-        return logs(path)
-            .map(r -> createHistory(r, path))
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+    public List<History> history(final String path) throws IOException {
+        return history(path, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a page of the history of a file in the repository, newest first. Commits that deleted the file are
+     * not included.
+     *
+     * @param path   - the file path
+     * @param offset - number of History objects to skip
+     * @param limit  - maximum number of History objects to return
+     * @return - List of History objects
+     * @throws IOException - failed.
+     */
+    public List<History> history(final String path, final int offset, final int limit) throws IOException {
+        if (isUndefined()) {
+            return new ArrayList<>();
+        }
+        val entries = pathHistory().entries(git.getRepository(), path);
+        return withReader(reader -> {
+            try (val walk = new RevWalk(reader)) {
+                val history = new ArrayList<History>();
+                for (val entry : entries.stream()
+                        .filter(e -> !ObjectId.zeroId().equals(e.getBlob()))
+                        .skip(Math.max(offset, 0))
+                        .limit(Math.max(limit, 0))
+                        .collect(Collectors.toList())) {
+                    val r = walk.parseCommit(entry.getCommit());
+                    val h = new History();
+                    h.setId(entry.getBlob().name());
+                    h.setCommit(r.name());
+                    h.setPath(path);
+                    h.setMessage(r.getFullMessage());
+                    h.setTime(formatCommitTime(entry.getCommitTime()));
+                    h.setCommitter(r.getCommitterIdent().getName());
+                    history.add(h);
+                }
+                return history;
+            }
+        });
     }
 
     /**
@@ -535,6 +902,7 @@ public class GitUtil implements AutoCloseable {
         git.checkout()
             .addPath(path)
             .call();
+        invalidateStatus();
     }
 
     /**
@@ -561,6 +929,7 @@ public class GitUtil implements AutoCloseable {
                 .setRef(reset.abbreviate(NAME_LENGTH).name())
                 .setMode(ResetCommand.ResetType.HARD)
                 .call();
+            invalidateStatus();
         }
     }
 
@@ -573,6 +942,7 @@ public class GitUtil implements AutoCloseable {
     public void reset(final String path) throws GitAPIException {
         if (!isUndefined()) {
             git.reset().addPath(path).call();
+            invalidateStatus();
         }
     }
 
@@ -632,6 +1002,7 @@ public class GitUtil implements AutoCloseable {
     public void addFile(final String file) {
         if (!isUndefined()) {
             git.add().addFilepattern(file).call();
+            invalidateStatus();
         }
     }
 
@@ -669,6 +1040,32 @@ public class GitUtil implements AutoCloseable {
         }
     }
 
+    /**
+     * Method will tag the passed commit as being the latest published.
+     *
+     * @param commit - the commit
+     */
+    @SneakyThrows
+    public void setPublished(final ObjectId commit) {
+        if (!isUndefined()) {
+            git.tagDelete().setTags("published").call();
+            git.tag().setName("published").setObjectId(parseCommit(commit)).call();
+        }
+    }
+
+    /**
+     * Returns the commit the published tag points to, or null if nothing has been published.
+     *
+     * @return - ObjectId of the published commit
+     */
+    public ObjectId publishedCommit() {
+        val published = getPublished();
+        if (published == null) {
+            return null;
+        }
+        return published.getPeeledObjectId() != null ? published.getPeeledObjectId() : published.getObjectId();
+    }
+
     /**
      * Method returns the Ref to the commit witht the published tag.
      *
@@ -693,6 +1090,7 @@ public class GitUtil implements AutoCloseable {
     public void rm(final String newPath) throws GitAPIException {
         if (!isUndefined()) {
             git.rm().addFilepattern(newPath).call();
+            invalidateStatus();
         }
     }
 
@@ -723,12 +1121,76 @@ public class GitUtil implements AutoCloseable {
 
     }
 
+    private synchronized PathHistoryIndex pathHistory() {
+        if (pathHistory == null) {
+            pathHistory = new PathHistoryIndex(git.getRepository().getDirectory());
+        }
+        return pathHistory;
+    }
+
     /**
-     * Closes the git repository.
+     * Runs the function with an idle reader, or a new one if none is idle, and keeps the reader for reuse afterwards
+     * unless enough are already idle.
+     */
+    private <T> T withReader(final ReaderFunction<T> function) throws IOException {
+        val idle = readers.poll();
+        val reader = idle != null ? idle : git.getRepository().newObjectReader();
+        try {
+            return function.apply(reader);
+        } finally {
+            if (readers.size() < MAX_IDLE_READERS) {
+                readers.offer(reader);
+            } else {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Function reading the repository through a reader it must not close.
+     *
+     * @param <T> - the result type
+     */
+    @FunctionalInterface
+    private interface ReaderFunction<T> {
+        T apply(ObjectReader reader) throws IOException;
+    }
+
+    private void invalidateStatus() {
+        if (statusCache != null) {
+            statusCache.invalidate();
+        }
+    }
+
+    /**
+     * Brings the path history index up to the new HEAD. A failure only costs a longer walk on the next history read.
+     */
+    private void indexHistory() {
+        try {
+            pathHistory().update(git.getRepository());
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to update history index: [{}]", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the git repository, unless this GitUtil is shared across requests.
      */
     @Override
     public void close() {
+        if (!shared) {
+            release();
+        }
+    }
+
+    /**
+     * Closes the git repository and the idle readers even if this GitUtil is shared.
+     */
+    public void release() {
         if (!isUndefined()) {
+            for (var reader = readers.poll(); reader != null; reader = readers.poll()) {
+                reader.close();
+            }
             git.close();
         }
     }
@@ -743,7 +1205,7 @@ public class GitUtil implements AutoCloseable {
     }
 
     /**
-     * Returns a new ObjectReader for the repository.
+     * Returns a new ObjectReader for the repository. The caller owns it and must close it.
      *
      * @return - ObjectReader.
      */
@@ -797,6 +1259,7 @@ public class GitUtil implements AutoCloseable {
     public void pull() throws GitAPIException {
         if (!isUndefined()) {
             git.pull().call();
+            invalidateStatus();
         }
     }
 
@@ -808,14 +1271,54 @@ public class GitUtil implements AutoCloseable {
      */
     public BranchMap mapBranches(final Ref r) {
         try {
-            val revWalk = new RevWalk(git.getRepository());
-            return new BranchMap(this, r, revWalk.parseCommit(git.getRepository().resolve(r.getName())));
+            return new BranchMap(this, r, parseCommit(r.getObjectId()));
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
         return null;
     }
 
+    /**
+     * Returns a summary of the head commit of every branch in the repository.
+     *
+     * @return - List of BranchSummary
+     * @throws IOException - failed
+     */
+    public List<BranchSummary> branchSummaries() throws IOException {
+        return branchSummaries(r -> true);
+    }
+
+    /**
+     * Returns a summary of the head commit of every branch whose ref matches the passed filter. Refs are filtered by
+     * name before any commit is read, and all head commits are parsed with one shared walk and reader. Only commit
+     * objects are read; review states come from the notes index.
+     *
+     * @param filter - filter applied to branch refs before their commits are read
+     * @return - List of BranchSummary
+     * @throws IOException - failed
+     */
+    public List<BranchSummary> branchSummaries(final Predicate<Ref> filter) throws IOException {
+        if (isUndefined()) {
+            return new ArrayList<>(0);
+        }
+        val repository = git.getRepository();
+        val states = noteStates.states(repository);
+        val summaries = new ArrayList<BranchSummary>();
+        return withReader(reader -> {
+            try (val walk = new RevWalk(reader)) {
+                for (val ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS)) {
+                    if (ref.getObjectId() == null || !filter.test(ref)) {
+                        continue;
+                    }
+                    val commit = walk.parseCommit(ref.getObjectId());
+                    summaries.add(new BranchSummary(ref.getName(), commit.name(), commit.getFullMessage(),
+                            commit.getCommitterIdent().getName(), commit.getCommitTime(), states.getOrDefault(commit, 0)));
+                }
+            }
+            return summaries;
+        });
+    }
+
     /**
      * Returns a list fo differences between the last two commits in a branch.
      *
@@ -838,13 +1341,24 @@ public class GitUtil implements AutoCloseable {
      * @throws IOException - failed
      */
     public List<DiffEntry> getDiffs(final String first, final String second) throws GitAPIException, IOException {
-        val oldTreeIter = new CanonicalTreeParser();
-        try (val reader = git.getRepository().newObjectReader()) {
-            oldTreeIter.reset(reader, git.getRepository().resolve(first));
+        return scanTrees(first, second);
+    }
+
+    /**
+     * Scans the differences between two trees with a pooled reader. Same result as a DiffCommand over the trees,
+     * without the reader the command would open.
+     */
+    private List<DiffEntry> scanTrees(final String oldTree, final String newTree) throws IOException {
+        return withReader(reader -> {
+            val oldTreeIter = new CanonicalTreeParser();
+            oldTreeIter.reset(reader, git.getRepository().resolve(oldTree));
             val newTreeIter = new CanonicalTreeParser();
-            newTreeIter.reset(reader, git.getRepository().resolve(second));
-            return git.diff().setOldTree(oldTreeIter).setNewTree(newTreeIter).call();
-        }
+            newTreeIter.reset(reader, git.getRepository().resolve(newTree));
+            try (val formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                formatter.setReader(reader, git.getRepository().getConfig());
+                return formatter.scan(oldTreeIter, newTreeIter);
+            }
+        });
     }
 
     /**
@@ -906,6 +1420,42 @@ public class GitUtil implements AutoCloseable {
         return getDiffs(branch + TOP_MINUS_1, branch + TOP);
     }
 
+    /**
+     * Returns the net differences between the published commit and HEAD in one tree comparison, however many
+     * commits lie between them. Renamed files are detected and returned as a single RENAME entry. If nothing has been
+     * published yet, every file in HEAD is returned as an ADD.
+     *
+     * @return - List of DiffEntry.
+     * @throws IOException - failed
+     */
+    public List<DiffEntry> getUnpublishedDiffs() throws IOException {
+        return getTreeDiffs(publishedCommit(), git.getRepository().resolve(Constants.HEAD));
+    }
+
+    /**
+     * Returns the differences between the trees of two commits with renames detected. A null old commit compares
+     * against an empty tree, so every file in the new commit is returned as an ADD.
+     *
+     * @param oldCommit - the old commit or null
+     * @param newCommit - the new commit
+     * @return - List of DiffEntry.
+     * @throws IOException - failed
+     */
+    public List<DiffEntry> getTreeDiffs(final ObjectId oldCommit, final ObjectId newCommit) throws IOException {
+        return withReader(reader -> {
+            AbstractTreeIterator oldTreeIter = new EmptyTreeIterator();
+            if (oldCommit != null) {
+                oldTreeIter = new CanonicalTreeParser(null, reader, parseCommit(oldCommit).getTree());
+            }
+            val newTreeIter = new CanonicalTreeParser(null, reader, parseCommit(newCommit).getTree());
+            try (val formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                formatter.setReader(reader, git.getRepository().getConfig());
+                formatter.setDetectRenames(true);
+                return formatter.scan(oldTreeIter, newTreeIter);
+            }
+        });
+    }
+
     /**
      * Returns a list fo differences between the last two commits in a branch.
      *
@@ -915,17 +1465,11 @@ public class GitUtil implements AutoCloseable {
      * @throws IOException - failed
      */
     public List<DiffEntry> getDiffsToRevert(final String branch) throws GitAPIException, IOException {
-        val oldTreeIter = new CanonicalTreeParser();
-        try (val reader = git.getRepository().newObjectReader()) {
-            oldTreeIter.reset(reader, git.getRepository().resolve(branch + TOP));
-            val newTreeIter = new CanonicalTreeParser();
-            newTreeIter.reset(reader, git.getRepository().resolve(branch + TOP_MINUS_1));
-            return git.diff().setOldTree(oldTreeIter).setNewTree(newTreeIter).call();
-        }
+        return scanTrees(branch + TOP, branch + TOP_MINUS_1);
     }
 
     /**
-     * Overloaded method to return a formatted diff by using two ObjectIds.
+     * Overloaded method to return a formatted diff by using two ObjectIds. Served from the diff cache when one is set.
      *
      * @param oldId - ObjectId.
      * @param newId - ObectId.
@@ -933,7 +1477,10 @@ public class GitUtil implements AutoCloseable {
      * @throws IOException -failed.
      */
     public byte[] getFormatter(final ObjectId oldId, final ObjectId newId) throws IOException {
-        return getFormatter(rawText(oldId), rawText(newId));
+        if (diffCache == null || isUndefined()) {
+            return getFormatter(rawText(oldId), rawText(newId));
+        }
+        return diffCache.get(oldId, newId, diffAlgorithm(), () -> getFormatter(rawText(oldId), rawText(newId)));
     }
 
     /**
@@ -970,9 +1517,7 @@ public class GitUtil implements AutoCloseable {
      */
     public byte[] getFormatter(final RawText oldText, final RawText newText) throws IOException {
         if (!isUndefined()) {
-            val diffAlgorithm = DiffAlgorithm.getAlgorithm(
-                git.getRepository().getConfig().getEnum("diff",
-                    null, "algorithm", DiffAlgorithm.SupportedAlgorithm.HISTOGRAM));
+            val diffAlgorithm = DiffAlgorithm.getAlgorithm(diffAlgorithm());
             val editList = diffAlgorithm.diff(RawTextComparator.DEFAULT, oldText, newText);
             val bytes = new ByteArrayOutputStream();
             try (val df = new DiffFormatter(bytes)) {
@@ -985,6 +1530,10 @@ public class GitUtil implements AutoCloseable {
         return StringUtils.EMPTY.getBytes(StandardCharsets.UTF_8);
     }
 
+    private DiffAlgorithm.SupportedAlgorithm diffAlgorithm() {
+        return git.getRepository().getConfig().getEnum("diff", null, "algorithm", DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+    }
+
     /**
      * Returns the RawText of file specified by ObjectId.
      *
@@ -994,10 +1543,9 @@ public class GitUtil implements AutoCloseable {
      */
     @SuppressWarnings("DefaultCharset")
     public RawText rawText(final ObjectId id) throws IOException {
-        val objectReader = objectReader();
-        return objectReader.has(id)
-                ? new RawText(objectReader.open(id).getBytes())
-                : new RawText(readFormWorkingTree(id).getBytes());
+        return withReader(reader -> reader.has(id)
+                ? new RawText(reader.open(id).getBytes())
+                : new RawText(readFormWorkingTree(id).getBytes()));
     }
 
     /**
@@ -1035,12 +1583,13 @@ public class GitUtil implements AutoCloseable {
      * @throws NoSuchFieldException - failed
      */
     public RevCommit findSubmitCommit(final String branchName) throws GitAPIException, NoSuchFieldException {
+        val name = Iterables.get(Splitter.on('_').split(branchName), 1);
         return git.branchList()
             .call()
             .stream()
-            .map(this::mapBranches)
-            .filter(r -> r.getRef().getName().contains(Iterables.get(Splitter.on('_').split(branchName), 1)))
+            .filter(r -> r.getName().contains(name))
             .findFirst()
+            .map(this::mapBranches)
             .orElseThrow(() -> new NoSuchFieldException("Submit '" + branchName + "' was not found"))
             .revCommit;
     }
@@ -1054,8 +1603,7 @@ public class GitUtil implements AutoCloseable {
      * @throws GitAPIException - failed
      */
     public void markAsReverted(final String branch, final CasUserProfile user) throws GitAPIException, IOException {
-        val revWalk = new RevWalk(git.getRepository());
-        val com = revWalk.parseCommit(git.getRepository().resolve(branch));
+        val com = parseCommit(git.getRepository().resolve(branch));
         val msg = "REVERTED by " + user.getId() + " on " + new Date().toString() + "\n    ";
         appendNote(com, msg);
     }
@@ -1083,6 +1631,7 @@ public class GitUtil implements AutoCloseable {
         } catch (final Exception e) {
             LOGGER.error("Error Rebasing git ", e);
         } finally {
+            invalidateStatus();
             git.close();
         }
         return this;
@@ -1141,7 +1690,7 @@ public class GitUtil implements AutoCloseable {
      */
     public boolean isRejected(final RevObject com) {
         try {
-            return noteText(com).contains("REJECTED");
+            return hasState(com, NoteStateIndex.REJECTED);
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
@@ -1156,7 +1705,7 @@ public class GitUtil implements AutoCloseable {
      */
     public boolean isReverted(final RevObject com) {
         try {
-            return noteText(com).contains("REVERTED");
+            return hasState(com, NoteStateIndex.REVERTED);
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
@@ -1171,13 +1720,17 @@ public class GitUtil implements AutoCloseable {
      */
     public boolean isAccepted(final RevObject com) {
         try {
-            return noteText(com).contains("ACCEPTED");
+            return hasState(com, NoteStateIndex.ACCEPTED);
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
         return false;
     }
 
+    private boolean hasState(final RevObject com, final int state) throws IOException {
+        return !isUndefined() && (noteStates.state(git.getRepository(), com) & state) != 0;
+    }
+
     /**
      * This methods moves the file when it has been renamed.
      *
@@ -1196,6 +1749,7 @@ public class GitUtil implements AutoCloseable {
         Files.move(oldPath, target);
         git.add().addFilepattern(newName).call();
         git.rm().addFilepattern(oldName).call();
+        invalidateStatus();
     }
 
     /**
@@ -1248,6 +1802,32 @@ public class GitUtil implements AutoCloseable {
         }
     }
 
+    /**
+     * Summary of the head commit of a branch and its review state.
+     */
+    @RequiredArgsConstructor
+    @Getter
+    public static class BranchSummary {
+        private final String name;
+        private final String id;
+        private final String fullMessage;
+        private final String committer;
+        private final int commitTime;
+        private final int state;
+
+        public boolean isAccepted() {
+            return (state & NoteStateIndex.ACCEPTED) != 0;
+        }
+
+        public boolean isRejected() {
+            return (state & NoteStateIndex.REJECTED) != 0;
+        }
+
+        public boolean isReverted() {
+            return (state & NoteStateIndex.REVERTED) != 0;
+        }
+    }
+
     @SneakyThrows
     private static Git initializeGitRepository(final File path, final boolean mustExist) {
         LOGGER.debug("Initializing git repository directory at [{}] with strict path checking [{}]", path, BooleanUtils.toStringOnOff(mustExist));
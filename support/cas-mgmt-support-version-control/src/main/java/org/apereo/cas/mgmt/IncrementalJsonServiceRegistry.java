@@ -0,0 +1,229 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.services.JsonServiceRegistry;
+import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.resource.RegisteredServiceResourceNamingStrategy;
+import org.apereo.cas.util.io.WatcherService;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * JSON service registry for a management repository that only re-reads the service files reported as changed by a
+ * {@link ServiceChangeTracker.Watch}. The whole directory is only parsed on the first load and when the watch has lost
+ * events or a changed file name can not be mapped back to a service id.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class IncrementalJsonServiceRegistry extends JsonServiceRegistry {
+
+    private static final Pattern SERVICE_FILE = Pattern.compile(".*-(\\d+)\\.json$");
+
+    private final Path path;
+    private final ServiceChangeTracker.Watch watch;
+    private final Supplier<Map<String, RegisteredService>> shared;
+    private final Map<Long, RegisteredService> services = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Services re-read by the last load, or all services if the last load read the whole directory.
+     */
+    @Getter
+    private volatile Collection<RegisteredService> lastUpdated = List.of();
+
+    /**
+     * Ids of services whose files were deleted before the last load.
+     */
+    @Getter
+    private volatile Set<Long> lastRemoved = Set.of();
+
+    /**
+     * True if the last load read the whole directory.
+     */
+    @Getter
+    private volatile boolean lastLoadFull = true;
+
+    public IncrementalJsonServiceRegistry(final Path path,
+                                          final RegisteredServiceResourceNamingStrategy namingStrategy,
+                                          final ServiceChangeTracker.Watch watch) throws Exception {
+        this(path, namingStrategy, watch, Map::of);
+    }
+
+    /**
+     * Creates a registry that takes services from the passed shared map instead of parsing their files when the whole
+     * directory is read. The map is keyed by file name and must only hold files that are unchanged in this directory.
+     *
+     * @param path - the directory
+     * @param namingStrategy - the naming strategy
+     * @param watch - watch reporting changed files
+     * @param shared - supplier of shared services by file name
+     * @throws Exception - failed to create the registry
+     */
+    public IncrementalJsonServiceRegistry(final Path path,
+                                          final RegisteredServiceResourceNamingStrategy namingStrategy,
+                                          final ServiceChangeTracker.Watch watch,
+                                          final Supplier<Map<String, RegisteredService>> shared) throws Exception {
+        super(new FileSystemResource(path), WatcherService.noOp(), null, null, namingStrategy, null);
+        this.path = path;
+        this.watch = watch;
+        this.shared = shared;
+    }
+
+    /**
+     * Returns true if files in the repository changed since the last load.
+     *
+     * @return - true if modified
+     */
+    public boolean isModified() {
+        return !loaded || watch.hasChanges();
+    }
+
+    /**
+     * Forces the next load to read the whole directory.
+     */
+    public void invalidate() {
+        watch.invalidate();
+    }
+
+    @Override
+    public synchronized Collection<RegisteredService> load() {
+        val changes = watch.drain();
+        if (!loaded || changes.isOverflow() || !apply(changes.getFiles())) {
+            reloadAll();
+        }
+        return new ArrayList<>(services.values());
+    }
+
+    @Override
+    public RegisteredService save(final RegisteredService registeredService) {
+        val saved = super.save(registeredService);
+        services.put(saved.getId(), saved);
+        return saved;
+    }
+
+    @Override
+    public boolean delete(final RegisteredService registeredService) {
+        val deleted = super.delete(registeredService);
+        services.remove(registeredService.getId());
+        return deleted;
+    }
+
+    /**
+     * Stops tracking changes to the repository.
+     */
+    @Override
+    @SneakyThrows
+    public void destroy() {
+        super.destroy();
+        watch.close();
+    }
+
+    private void reloadAll() {
+        val base = shared.get();
+        val all = base.isEmpty() ? super.load() : loadWith(base);
+        services.clear();
+        services.putAll(all.stream().collect(Collectors.toMap(RegisteredService::getId, Function.identity(), (a, b) -> b)));
+        lastUpdated = all;
+        lastRemoved = Set.of();
+        lastLoadFull = true;
+        loaded = true;
+        LOGGER.debug("Read all [{}] services from [{}]", all.size(), getName());
+    }
+
+    /**
+     * Reads the directory taking services from the shared map and only parsing files that are not in it.
+     */
+    @SneakyThrows
+    private Collection<RegisteredService> loadWith(final Map<String, RegisteredService> base) {
+        val all = new ArrayList<RegisteredService>();
+        var reused = 0;
+        var parsed = 0;
+        try (val files = Files.list(path)) {
+            for (val file : (Iterable<Path>) files::iterator) {
+                val name = file.getFileName().toString();
+                if (!name.endsWith(".json")) {
+                    continue;
+                }
+                val service = base.get(name);
+                if (service != null) {
+                    all.add(service);
+                    reused++;
+                } else {
+                    all.addAll(load(file.toFile()));
+                    parsed++;
+                }
+            }
+        }
+        LOGGER.debug("Shared [{}] services and parsed [{}] files in [{}]", reused, parsed, path);
+        return all;
+    }
+
+    /**
+     * Re-reads the changed service files. Returns false if a file could not be mapped to a service id, in which case
+     * nothing has been applied and the caller must reload the whole directory. The files are grouped by service id, so
+     * a rename, which changes two files with the same id, removes the service once and then reads whichever of the
+     * files still exists, in whatever order the events arrived.
+     */
+    private boolean apply(final Set<Path> files) {
+        val byId = new LinkedHashMap<Long, List<Path>>();
+        for (val file : files) {
+            val name = file.getFileName().toString();
+            val id = serviceId(name);
+            if (id != null) {
+                byId.computeIfAbsent(id, k -> new ArrayList<>()).add(file);
+            } else if (name.endsWith(".json")) {
+                return false;
+            }
+        }
+        val updated = new ArrayList<RegisteredService>();
+        val removed = new HashSet<Long>();
+        byId.forEach((id, changed) -> {
+            services.remove(id);
+            removed.add(id);
+            changed.stream().filter(Files::exists).forEach(file -> {
+                val read = load(file.toFile());
+                read.forEach(s -> services.put(s.getId(), s));
+                updated.addAll(read);
+            });
+        });
+        updated.forEach(s -> removed.remove(s.getId()));
+        lastUpdated = updated;
+        lastRemoved = removed;
+        lastLoadFull = false;
+        LOGGER.debug("Re-read [{}] and removed [{}] services from [{}]", updated.size(), removed.size(), getName());
+        return true;
+    }
+
+    /**
+     * Returns the service id encoded in a file name built by the naming strategy, or null if the name does not
+     * belong to a service definition.
+     *
+     * @param fileName - file name or repository path
+     * @return - the id or null
+     */
+    static Long serviceId(final String fileName) {
+        val matcher = SERVICE_FILE.matcher(fileName);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+}
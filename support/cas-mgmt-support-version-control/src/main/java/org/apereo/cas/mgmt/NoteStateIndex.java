@@ -0,0 +1,133 @@
+package org.apereo.cas.mgmt;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.notes.NoteMap;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Review state of every commit that has a note in {@code refs/notes/commits}. Each note is parsed once into a set of
+ * flags and the index is only rebuilt when the notes ref moves. Notes whose blob did not change since the previous
+ * build keep their parsed state, so appending a note to one pull request only parses that note again.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+class NoteStateIndex {
+
+    /**
+     * Commit was marked as accepted by an administrator.
+     */
+    static final int ACCEPTED = 1;
+
+    /**
+     * Commit was marked as rejected by an administrator.
+     */
+    static final int REJECTED = 1 << 1;
+
+    /**
+     * Commit was marked as reverted by its submitter.
+     */
+    static final int REVERTED = 1 << 2;
+
+    private volatile Snapshot current = new Snapshot(null, Map.of(), Map.of());
+
+    /**
+     * Returns the state flags of the passed commit, rebuilding the index first if the notes ref has moved.
+     *
+     * @param repository - the repository
+     * @param commit - the commit
+     * @return - state flags, 0 if the commit has no note
+     * @throws IOException - failed to read the notes
+     */
+    int state(final Repository repository, final AnyObjectId commit) throws IOException {
+        return refresh(repository).byCommit.getOrDefault(commit, 0);
+    }
+
+    /**
+     * Returns the state flags of every commit that has a review state, rebuilding the index first if the notes ref
+     * has moved.
+     *
+     * @param repository - the repository
+     * @return - state flags by commit id
+     * @throws IOException - failed to read the notes
+     */
+    Map<ObjectId, Integer> states(final Repository repository) throws IOException {
+        return refresh(repository).byCommit;
+    }
+
+    private Snapshot refresh(final Repository repository) throws IOException {
+        val ref = repository.exactRef(Constants.R_NOTES_COMMITS);
+        val head = ref != null && ref.getObjectId() != null ? ref.getObjectId() : ObjectId.zeroId();
+        var snapshot = current;
+        if (head.equals(snapshot.notes)) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current;
+            if (!head.equals(snapshot.notes)) {
+                snapshot = build(repository, head, snapshot);
+                current = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    private static Snapshot build(final Repository repository, final ObjectId head, final Snapshot previous) throws IOException {
+        if (ObjectId.zeroId().equals(head)) {
+            return new Snapshot(head, Map.of(), Map.of());
+        }
+        val byCommit = new HashMap<ObjectId, Integer>();
+        val byBlob = new HashMap<ObjectId, Integer>();
+        var parsed = 0;
+        try (val reader = repository.newObjectReader(); val walk = new RevWalk(reader)) {
+            val map = NoteMap.read(reader, walk.parseCommit(head));
+            for (val note : map) {
+                val blob = note.getData().copy();
+                var state = previous.byBlob.get(blob);
+                if (state == null) {
+                    state = parse(new String(reader.open(blob).getCachedBytes(), StandardCharsets.UTF_8));
+                    parsed++;
+                }
+                byBlob.put(blob, state);
+                if (state != 0) {
+                    byCommit.put(note.copy(), state);
+                }
+            }
+        }
+        LOGGER.debug("Indexed notes at [{}]: [{}] notes, [{}] parsed", head.name(), byBlob.size(), parsed);
+        return new Snapshot(head, Map.copyOf(byCommit), Map.copyOf(byBlob));
+    }
+
+    private static int parse(final String text) {
+        var state = 0;
+        if (text.contains("ACCEPTED")) {
+            state |= ACCEPTED;
+        }
+        if (text.contains("REJECTED")) {
+            state |= REJECTED;
+        }
+        if (text.contains("REVERTED")) {
+            state |= REVERTED;
+        }
+        return state;
+    }
+
+    @RequiredArgsConstructor
+    private static class Snapshot {
+        private final ObjectId notes;
+        private final Map<ObjectId, Integer> byCommit;
+        private final Map<ObjectId, Integer> byBlob;
+    }
+}
@@ -0,0 +1,309 @@
+package org.apereo.cas.mgmt;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.storage.file.FileSnapshot;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent index of the commits reachable from HEAD that changed each path, newest first, with the id of the blob
+ * the path held in that commit and the commit time. A merge is only recorded for a path if the path differs from
+ * every parent.
+ *
+ * <p>
+ * The index is kept in a file in the git directory as a list of segments. Each segment holds the entries for the
+ * commits added since the previous segment and ends with the HEAD it was built to. When HEAD has moved forward only the
+ * new commits are walked and a new segment is appended. When HEAD was moved to a commit that does not descend from the
+ * indexed one, the file is rewritten from a full walk.
+ *
+ * <p>
+ * One index is meant to be shared by every {@link GitUtil} opened on a repository. Writers in other instances or
+ * processes are kept out with a git lock file next to the index: the index reloads the file if another writer changed
+ * it, and if the lock is held it updates in memory only and rewrites the file on its next update.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class PathHistoryIndex {
+
+    /**
+     * Name of the index file in the git directory.
+     */
+    public static final String FILE_NAME = "mgmt-history.idx";
+
+    private static final String TIP = "tip ";
+
+    private final File file;
+
+    private ObjectId tip;
+
+    private Map<String, List<Entry>> byPath;
+
+    private boolean partial;
+
+    private Map<String, List<Entry>> added = Map.of();
+
+    private FileSnapshot snapshot = FileSnapshot.DIRTY;
+
+    /**
+     * Creates the index of the repository in the git directory.
+     *
+     * @param gitDir - the git directory
+     */
+    public PathHistoryIndex(final File gitDir) {
+        this.file = new File(gitDir, FILE_NAME);
+    }
+
+    /**
+     * Returns the entries for the path, newest first, bringing the index up to HEAD first.
+     *
+     * @param repository - the repository
+     * @param path - the path
+     * @return - the entries
+     * @throws IOException - failed to read the repository
+     */
+    synchronized List<Entry> entries(final Repository repository, final String path) throws IOException {
+        update(repository);
+        return new ArrayList<>(byPath.getOrDefault(path, List.of()));
+    }
+
+    /**
+     * Brings the index up to HEAD.
+     *
+     * @param repository - the repository
+     * @throws IOException - failed to read the repository or write the index
+     */
+    synchronized void update(final Repository repository) throws IOException {
+        if (byPath == null) {
+            load();
+        }
+        val head = repository.resolve(Constants.HEAD);
+        if (head == null || head.equals(tip)) {
+            return;
+        }
+        val lock = new LockFile(file);
+        if (!lock.lock()) {
+            LOGGER.debug("History index [{}] is locked by another writer, updating in memory only", file);
+            extend(repository, head);
+            partial = true;
+            return;
+        }
+        try {
+            if (snapshot.isModified(file)) {
+                load();
+                if (head.equals(tip)) {
+                    return;
+                }
+            }
+            val append = extend(repository, head);
+            if (append && !partial) {
+                append();
+            } else {
+                rewrite(lock);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Walks the commits from the indexed tip to HEAD into the index, or from the root if HEAD does not descend from
+     * the tip. The new entries are kept in {@link #added} until they are written.
+     *
+     * @return - true if the walk extended the index, false if it rebuilt it
+     */
+    private boolean extend(final Repository repository, final ObjectId head) throws IOException {
+        val append = tip != null && descends(repository, tip, head);
+        val added = new LinkedHashMap<String, List<Entry>>();
+        var commits = 0;
+        try (val reader = repository.newObjectReader(); val walk = new RevWalk(reader)) {
+            walk.sort(RevSort.COMMIT_TIME_DESC);
+            walk.markStart(walk.parseCommit(head));
+            if (append) {
+                walk.markUninteresting(walk.parseCommit(tip));
+            }
+            for (val commit : walk) {
+                changes(reader, walk, commit, added);
+                commits++;
+            }
+        }
+        if (!append) {
+            byPath = new HashMap<>();
+        }
+        merge(added);
+        tip = head.copy();
+        this.added = added;
+        LOGGER.debug("{} history index to [{}] with [{}] commits", append ? "Extended" : "Rebuilt", head.name(), commits);
+        return append;
+    }
+
+    private static boolean descends(final Repository repository, final ObjectId base, final ObjectId head) throws IOException {
+        try (val walk = new RevWalk(repository)) {
+            return walk.isMergedInto(walk.parseCommit(base), walk.parseCommit(head));
+        } catch (final MissingObjectException e) {
+            return false;
+        }
+    }
+
+    private static void changes(final ObjectReader reader, final RevWalk walk, final RevCommit commit,
+                                final Map<String, List<Entry>> added) throws IOException {
+        try (val tw = new TreeWalk(reader)) {
+            tw.setRecursive(true);
+            tw.addTree(commit.getTree());
+            if (commit.getParentCount() == 0) {
+                tw.addTree(new EmptyTreeIterator());
+            }
+            for (val parent : commit.getParents()) {
+                tw.addTree(walk.parseCommit(parent).getTree());
+            }
+            tw.setFilter(TreeFilter.ANY_DIFF);
+            while (tw.next()) {
+                if (sameAsAnyParent(tw)) {
+                    continue;
+                }
+                added.computeIfAbsent(tw.getPathString(), p -> new ArrayList<>())
+                        .add(new Entry(commit.copy(), tw.getObjectId(0), commit.getCommitTime()));
+            }
+        }
+    }
+
+    private static boolean sameAsAnyParent(final TreeWalk tw) {
+        for (var i = 1; i < tw.getTreeCount(); i++) {
+            if (tw.idEqual(0, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts newer entries in front of the indexed ones.
+     */
+    private void merge(final Map<String, List<Entry>> newer) {
+        newer.forEach((path, entries) -> {
+            val merged = new ArrayList<Entry>(entries);
+            merged.addAll(byPath.getOrDefault(path, List.of()));
+            byPath.put(path, merged);
+        });
+    }
+
+    private void load() {
+        byPath = new HashMap<>();
+        tip = null;
+        partial = false;
+        snapshot = FileSnapshot.save(file);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            val segment = new LinkedHashMap<String, List<Entry>>();
+            for (val line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (line.startsWith(TIP)) {
+                    merge(segment);
+                    segment.clear();
+                    tip = ObjectId.fromString(line.substring(TIP.length()));
+                    continue;
+                }
+                val fields = line.split(" ", 4);
+                segment.computeIfAbsent(fields[3], p -> new ArrayList<>())
+                        .add(new Entry(ObjectId.fromString(fields[0]), ObjectId.fromString(fields[1]), Integer.parseInt(fields[2])));
+            }
+            partial = !segment.isEmpty();
+            LOGGER.debug("Loaded history index for [{}] paths at [{}]", byPath.size(), tip);
+        } catch (final Exception e) {
+            LOGGER.warn("Discarding unreadable history index [{}]: [{}]", file, e.getMessage());
+            byPath = new HashMap<>();
+            tip = null;
+            partial = true;
+        }
+    }
+
+    /**
+     * Appends the entries added by the last walk to the file as a new segment. The tip line is written last so a
+     * segment cut short by a crash is ignored on load, and the file is rewritten on the next update.
+     */
+    private void append() {
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            write(out, added);
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to write history index [{}]: [{}]", file, e.getMessage());
+            partial = true;
+        }
+        snapshot = FileSnapshot.save(file);
+    }
+
+    /**
+     * Replaces the file with the whole index through the lock file, so readers never see it half written.
+     */
+    private void rewrite(final LockFile lock) {
+        lock.setNeedSnapshot(true);
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(lock.getOutputStream(), StandardCharsets.UTF_8))) {
+                write(out, byPath);
+            }
+            if (lock.commit()) {
+                snapshot = lock.getCommitSnapshot();
+                partial = false;
+                return;
+            }
+            LOGGER.warn("Failed to replace history index [{}]", file);
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to write history index [{}]: [{}]", file, e.getMessage());
+        }
+        partial = true;
+    }
+
+    private void write(final Writer out, final Map<String, List<Entry>> entries) throws IOException {
+        for (val path : entries.entrySet()) {
+            for (val entry : path.getValue()) {
+                out.write(entry.commit.name() + ' ' + entry.blob.name() + ' ' + entry.commitTime + ' ' + path.getKey() + '\n');
+            }
+        }
+        out.write(TIP + tip.name() + '\n');
+    }
+
+    /**
+     * A commit that changed a path.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static class Entry {
+        private final ObjectId commit;
+
+        /**
+         * Blob the path held in the commit, or the zero id if the commit deleted it.
+         */
+        private final ObjectId blob;
+
+        private final int commitTime;
+    }
+}
@@ -0,0 +1,420 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.configuration.CasManagementConfigurationProperties;
+import org.apereo.cas.mgmt.domain.NodeDistribution;
+import org.apereo.cas.mgmt.domain.PublishStatus;
+import org.apereo.cas.mgmt.factory.RepositoryFactory;
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+import org.apereo.cas.services.ServicesManager;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs publishes and syncs as background jobs, one at a time. A sync distributes the published services to the CAS
+ * servers when distribution is enabled and runs the sync script when one is configured; a publish first applies the
+ * unpublished changes. A request made while a job of the same type is queued or running attaches to that job instead
+ * of starting another; a request of the other type is queued behind it. The last few finished jobs are kept so clients
+ * can read how they ended.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class PublishJobs {
+
+    private static final int MAX_JOBS = 10;
+
+    private static final int MAX_OUTPUT_LINES = 10000;
+
+    private static final int APPLY_THREADS = 4;
+
+    private static final String SERVICE_SUFFIX = ".json";
+
+    private final RepositoryFactory repositoryFactory;
+
+    private final ServicesManager servicesManager;
+
+    private final CasManagementConfigurationProperties managementProperties;
+
+    private final ServiceDistributor serviceDistributor;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        val thread = new Thread(r, "mgmt-publish");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Applies the changed services of a publish, so services manager writes don't run on the common pool.
+     */
+    private final ExecutorService workers = Executors.newFixedThreadPool(APPLY_THREADS, r -> {
+        val thread = new Thread(r, "mgmt-publish-apply");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Jobs in the order they were started. Only finished jobs are evicted, so a queued or running job can always be
+     * looked up.
+     */
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    /**
+     * Most recently started job, which may still be queued behind the one running.
+     */
+    private Job latest;
+
+    public PublishJobs(final RepositoryFactory repositoryFactory,
+                       final ServicesManager servicesManager,
+                       final CasManagementConfigurationProperties managementProperties,
+                       final ServiceDistributor serviceDistributor) {
+        this.repositoryFactory = repositoryFactory;
+        this.servicesManager = servicesManager;
+        this.managementProperties = managementProperties;
+        this.serviceDistributor = serviceDistributor;
+    }
+
+    /**
+     * Starts a job, or returns the status of the queued or running job of the same type. A job is queued behind a
+     * running job of the other type, so a publish requested during a sync still applies the unpublished changes.
+     *
+     * @param publish - true to apply the unpublished changes before running the sync script, false to only run it
+     * @return - status of the started or attached job
+     */
+    public synchronized PublishStatus start(final boolean publish) {
+        val type = publish ? "PUBLISH" : "SYNC";
+        if (latest != null && !latest.isDone() && latest.type.equals(type)) {
+            LOGGER.debug("Attaching to [{}] job [{}]", latest.type, latest.id);
+            return latest.status(0);
+        }
+        val job = new Job(UUID.randomUUID().toString(), type);
+        jobs.put(job.id, job);
+        evictFinished();
+        executor.execute(() -> run(job, publish));
+        if (latest != null && !latest.isDone()) {
+            LOGGER.info("Queued [{}] job [{}] behind [{}] job [{}]", job.type, job.id, latest.type, latest.id);
+        } else {
+            LOGGER.info("Started [{}] job [{}]", job.type, job.id);
+        }
+        latest = job;
+        return job.status(0);
+    }
+
+    /**
+     * Returns the status of a job.
+     *
+     * @param id - id of the job
+     * @param from - first line of sync script output to return
+     * @return - the status, or null if there is no job with the id
+     */
+    public synchronized PublishStatus status(final String id, final int from) {
+        val job = jobs.get(id);
+        return job != null ? job.status(from) : null;
+    }
+
+    /**
+     * Asks a job to stop. Services already applied stay applied and the published tag is not moved, so the next
+     * publish applies and distributes the remaining changes.
+     *
+     * @param id - id of the job
+     * @return - the status, or null if there is no job with the id
+     */
+    public synchronized PublishStatus cancel(final String id) {
+        val job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        job.cancel();
+        return job.status(0);
+    }
+
+    /**
+     * Cancels the queued and running jobs and stops the worker thread.
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        jobs.values().forEach(Job::cancel);
+        executor.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void evictFinished() {
+        val it = jobs.values().iterator();
+        while (jobs.size() > MAX_JOBS && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void run(final Job job, final boolean publish) {
+        try {
+            if (publish) {
+                apply(job);
+            }
+            if (serviceDistributor.isEnabled()) {
+                job.phase("DISTRIBUTE");
+                distribute(job, publish);
+            }
+            if (publish) {
+                publish(job);
+            }
+            job.phase("SYNC");
+            runSyncScript(job);
+            job.finish("COMPLETED", null);
+        } catch (final CancellationException e) {
+            job.finish("CANCELLED", null);
+        } catch (final Exception e) {
+            LOGGER.error("[{}] job [{}] failed: [{}]", job.type, job.id, e.getMessage(), e);
+            job.finish("FAILED", e.getMessage());
+        }
+        LOGGER.info("[{}] job [{}] ended in phase [{}]", job.type, job.id, job.phase);
+    }
+
+    /**
+     * Applies the net changes between the published commit and HEAD to the services manager. Only service files are
+     * applied. Rename detection pairs files by content, not by service id, so a rename may pair two different
+     * services: the ids of every saved service are read first, and a deleted or renamed-away service is only deleted
+     * if no saved file holds its id. Deletes then run before saves, each phase on the apply workers.
+     */
+    private void apply(final Job job) throws Exception {
+        job.phase("DIFF");
+        try (GitUtil git = repositoryFactory.masterRepository()) {
+            job.from = git.publishedCommit();
+            job.to = git.getRepository().resolve(Constants.HEAD);
+            if (job.to == null) {
+                throw new IllegalStateException("Services repository has no commits to publish");
+            }
+            val diffs = git.getTreeDiffs(job.from, job.to);
+            val saves = diffs.stream()
+                    .filter(d -> d.getChangeType() != DiffEntry.ChangeType.DELETE && isService(d.getNewPath()))
+                    .collect(Collectors.toList());
+            val saved = new HashSet<Long>();
+            for (val save : saves) {
+                saved.add(getServiceId(git, save.getNewId()));
+            }
+            val deletes = new ArrayList<Long>();
+            for (val diff : diffs) {
+                if ((diff.getChangeType() == DiffEntry.ChangeType.DELETE || diff.getChangeType() == DiffEntry.ChangeType.RENAME)
+                        && isService(diff.getOldPath())) {
+                    val id = getServiceId(git, diff.getOldId());
+                    if (!saved.contains(id)) {
+                        deletes.add(id);
+                    }
+                }
+            }
+            job.total = deletes.size() + saves.size();
+            job.phase("DELETE");
+            inParallel(job, deletes, id -> servicesManager.delete(id));
+            job.phase("SAVE");
+            inParallel(job, saves, d -> servicesManager.save(CasManagementUtils.fromJson(getService(git, d.getNewId()))));
+            job.checkCancelled();
+        }
+    }
+
+    /**
+     * Runs the change for every item on the apply workers and waits for all of them, rethrowing the first failure.
+     */
+    private <T> void inParallel(final Job job, final List<T> items, final Consumer<T> change) {
+        val tasks = items.stream()
+                .map(item -> CompletableFuture.runAsync(() -> job.apply(() -> change.accept(item)), workers))
+                .collect(Collectors.toList());
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (final CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static boolean isService(final String path) {
+        return path != null && path.endsWith(SERVICE_SUFFIX);
+    }
+
+    /**
+     * Moves the published tag to the HEAD that was compared, even if more commits were made meanwhile. This runs only
+     * once every server has received the changes, so a failed distribution is retried from the same published commit
+     * by the next publish. Applying the changes to the services manager again is harmless.
+     */
+    private void publish(final Job job) {
+        job.checkCancelled();
+        try (GitUtil git = repositoryFactory.masterRepository()) {
+            git.setPublished(job.to);
+        }
+        LOGGER.info("Published [{}] changed services", job.total);
+    }
+
+    /**
+     * Distributes the services to the CAS servers. A publish distributes what changed between the previous and the
+     * new published commit, a sync distributes every service in the published commit.
+     */
+    private void distribute(final Job job, final boolean publish) throws Exception {
+        try (GitUtil git = repositoryFactory.masterRepository()) {
+            val to = publish ? job.to : git.publishedCommit();
+            if (to == null) {
+                return;
+            }
+            job.nodes = serviceDistributor.distribute(git, publish ? job.from : null, to);
+        }
+        val failed = job.nodes.stream().filter(n -> !n.isSuccess()).map(NodeDistribution::getName).collect(Collectors.joining(", "));
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Failed to distribute services to " + failed);
+        }
+    }
+
+    /**
+     * Runs the sync script if one is configured, copying its output into the job as it is written.
+     */
+    private void runSyncScript(final Job job) throws Exception {
+        val script = managementProperties.getVersionControl().getSyncScript();
+        if (script == null) {
+            return;
+        }
+        val command = Splitter.on(CharMatcher.whitespace()).omitEmptyStrings().splitToList(script);
+        val process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        job.process = process;
+        if (job.cancelled) {
+            process.destroy();
+        }
+        try (val output = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+            var line = output.readLine();
+            while (line != null) {
+                job.output(line);
+                line = output.readLine();
+            }
+        }
+        val status = process.waitFor();
+        job.checkCancelled();
+        if (status > 0) {
+            throw new IllegalStateException("Sync script exited with status " + status);
+        }
+    }
+
+    @SneakyThrows
+    private static String getService(final GitUtil git, final AbbreviatedObjectId id) {
+        return git.readObject(id.toObjectId());
+    }
+
+    @SneakyThrows
+    private static long getServiceId(final GitUtil git, final AbbreviatedObjectId id) {
+        return git.serviceMetadata(id.toObjectId()).getId();
+    }
+
+    /**
+     * State of one job, written by the worker thread and read by requests.
+     */
+    private static class Job {
+        private final String id;
+        private final String type;
+        private final long started = System.currentTimeMillis();
+        private final AtomicInteger applied = new AtomicInteger();
+        private final List<String> output = new ArrayList<>();
+        private volatile String phase = "QUEUED";
+        private volatile int total;
+        private volatile long finished;
+        private volatile String error;
+        private volatile boolean cancelled;
+        private volatile Process process;
+        private volatile ObjectId from;
+        private volatile ObjectId to;
+        private volatile List<NodeDistribution> nodes = new ArrayList<>();
+        private int outputLines;
+
+        Job(final String id, final String type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        boolean isDone() {
+            return finished > 0;
+        }
+
+        void phase(final String phase) {
+            checkCancelled();
+            this.phase = phase;
+        }
+
+        void apply(final Runnable change) {
+            if (!cancelled) {
+                change.run();
+                applied.incrementAndGet();
+            }
+        }
+
+        void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+
+        void cancel() {
+            if (isDone()) {
+                return;
+            }
+            cancelled = true;
+            val current = process;
+            if (current != null) {
+                current.destroy();
+            }
+        }
+
+        synchronized void output(final String line) {
+            outputLines++;
+            output.add(line);
+            if (output.size() > MAX_OUTPUT_LINES) {
+                output.remove(0);
+            }
+        }
+
+        void finish(final String phase, final String error) {
+            this.phase = phase;
+            this.error = error;
+            this.finished = System.currentTimeMillis();
+        }
+
+        synchronized PublishStatus status(final int from) {
+            val status = new PublishStatus();
+            status.setId(id);
+            status.setType(type);
+            status.setPhase(phase);
+            status.setTotal(total);
+            status.setApplied(applied.get());
+            status.setNodes(nodes);
+            val dropped = outputLines - output.size();
+            status.setOutput(new ArrayList<>(output.subList(Math.min(Math.max(from - dropped, 0), output.size()), output.size())));
+            status.setOutputLines(outputLines);
+            status.setStarted(CasManagementUtils.formatDateTime(started / 1000));
+            if (finished > 0) {
+                status.setFinished(CasManagementUtils.formatDateTime(finished / 1000));
+            }
+            status.setError(error);
+            return status;
+        }
+    }
+}
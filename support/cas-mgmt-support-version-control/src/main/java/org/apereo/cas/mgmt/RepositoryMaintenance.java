@@ -0,0 +1,431 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.configuration.CasManagementConfigurationProperties;
+import org.apereo.cas.mgmt.domain.RepositoryStatistics;
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+
+import com.google.common.base.Splitter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Scheduled maintenance of the services repository and the delegated users' repositories. Each run expires old
+ * reflog entries and then runs gc, which packs refs, repacks all objects into one pack and prunes unreachable objects
+ * older than the prune expiry.
+ *
+ * <p>
+ * A repository is skipped if another run holds its maintenance lock, or if it was changed more recently than the
+ * configured idle time. Runs only start inside the configured time window.
+ *
+ * <p>
+ * A user's repository cloned with shared objects borrows them from the services repository through git alternates.
+ * Repacking it would copy every borrowed object into it, so only its own loose objects are packed. The clone's refs
+ * and commits can reference objects that are no longer reachable in the services repository, for example after a
+ * submitted branch is deleted or the branch is reset. So while any shared clone exists, the services repository is
+ * not gc'd either; its loose objects are packed the same way and nothing is pruned. When that would leave more
+ * packs than the configured maximum, the repository's packs and loose objects are merged into one pack instead,
+ * still keeping unreachable objects, so the pack count stays bounded.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RepositoryMaintenance {
+
+    private static final String LOCK_NAME = "mgmt-maintenance";
+
+    private final CasManagementConfigurationProperties managementProperties;
+
+    private final Map<String, RepositoryStatistics> lastRuns = new ConcurrentHashMap<>();
+
+    /**
+     * Runs maintenance on every repository if maintenance is enabled and the current time is inside the window.
+     */
+    @Scheduled(initialDelayString = "${mgmt.versionControl.maintenance.startDelay:PT5M}",
+               fixedDelayString = "${mgmt.versionControl.maintenance.repeatInterval:PT6H}")
+    public void run() {
+        val maintenance = managementProperties.getVersionControl().getMaintenance();
+        if (!maintenance.isEnabled() || !inWindow(maintenance.getWindow(), LocalTime.now())) {
+            return;
+        }
+        val repositories = repositories();
+        val sharedClones = repositories.stream().anyMatch(RepositoryMaintenance::hasAlternates);
+        repositories.forEach(gitDir -> maintain(gitDir, maintenance, sharedClones));
+    }
+
+    /**
+     * Returns the current object counts and pack sizes of every repository, with the outcome of its last run.
+     *
+     * @return - List of RepositoryStatistics
+     */
+    public List<RepositoryStatistics> statistics() {
+        return repositories().stream().map(gitDir -> {
+            val stats = new RepositoryStatistics();
+            stats.setPath(gitDir.getParent());
+            try (val repository = open(gitDir)) {
+                val counts = new GC(repository).getStatistics();
+                stats.setLooseObjects(counts.numberOfLooseObjects);
+                stats.setLooseObjectsSize(counts.sizeOfLooseObjects);
+                stats.setPackedObjects(counts.numberOfPackedObjects);
+                stats.setPackedObjectsSize(counts.sizeOfPackedObjects);
+                stats.setPackFiles(counts.numberOfPackFiles);
+                stats.setLooseRefs(counts.numberOfLooseRefs);
+                stats.setPackedRefs(counts.numberOfPackedRefs);
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to read statistics of [{}]: [{}]", gitDir, e.getMessage());
+            }
+            val last = lastRuns.get(stats.getPath());
+            if (last != null) {
+                stats.setLastRun(last.getLastRun());
+                stats.setLastResult(last.getLastResult());
+                stats.setLastDuration(last.getLastDuration());
+            }
+            return stats;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns true if the time is inside the window. A blank window contains every time.
+     *
+     * @param window - window in the form HH:mm-HH:mm
+     * @param time - the time
+     * @return - true if the time is inside the window
+     */
+    static boolean inWindow(final String window, final LocalTime time) {
+        if (StringUtils.isBlank(window)) {
+            return true;
+        }
+        val bounds = Splitter.on('-').trimResults().splitToList(window);
+        val start = LocalTime.parse(bounds.get(0));
+        val end = LocalTime.parse(bounds.get(1));
+        return start.isAfter(end)
+                ? !time.isBefore(start) || time.isBefore(end)
+                : !time.isBefore(start) && time.isBefore(end);
+    }
+
+    private List<File> repositories() {
+        val repositories = new ArrayList<File>();
+        val master = new File(managementProperties.getVersionControl().getServicesRepo(), Constants.DOT_GIT);
+        if (master.isDirectory()) {
+            repositories.add(master);
+        }
+        if (managementProperties.getDelegated().isEnabled()) {
+            val users = new File(managementProperties.getDelegated().getUserReposDir()).listFiles(File::isDirectory);
+            if (users != null) {
+                for (val user : users) {
+                    val gitDir = new File(user, Constants.DOT_GIT);
+                    if (gitDir.isDirectory()) {
+                        repositories.add(gitDir);
+                    }
+                }
+            }
+        }
+        return repositories;
+    }
+
+    private void maintain(final File gitDir, final CasManagementConfigurationProperties.Maintenance maintenance,
+                          final boolean sharedClones) {
+        val stats = new RepositoryStatistics();
+        stats.setPath(gitDir.getParent());
+        val started = System.currentTimeMillis();
+        if (started - lastChanged(gitDir) < Duration.parse(maintenance.getMinIdle()).toMillis()) {
+            LOGGER.debug("Skipping maintenance of [{}], changed recently", gitDir);
+            return;
+        }
+        val lock = new LockFile(new File(gitDir, LOCK_NAME));
+        try {
+            if (!lock.lock()) {
+                LOGGER.debug("Skipping maintenance of [{}], it is locked", gitDir);
+                return;
+            }
+            try (val repository = open(gitDir)) {
+                val expired = expireReflogs(gitDir, started - Duration.parse(maintenance.getReflogExpire()).toMillis());
+                val gc = new GC(repository);
+                if (sharedClones) {
+                    gc.packRefs();
+                    val packed = packObjects(repository, maintenance.getMaxPackFiles());
+                    LOGGER.debug("Packed [{}] objects of [{}] without pruning", packed, gitDir);
+                } else {
+                    gc.setExpire(new Date(started - Duration.parse(maintenance.getPruneExpire()).toMillis()));
+                    gc.gc();
+                }
+                stats.setLastResult("COMPLETED");
+                LOGGER.info("Maintained [{}] in [{}]ms, expired [{}] reflog entries", gitDir,
+                        System.currentTimeMillis() - started, expired);
+            } finally {
+                lock.unlock();
+            }
+        } catch (final Exception e) {
+            stats.setLastResult("FAILED");
+            LOGGER.error("Maintenance of [{}] failed: [{}]", gitDir, e.getMessage(), e);
+        }
+        stats.setLastRun(CasManagementUtils.formatDateTime(started / 1000));
+        stats.setLastDuration(System.currentTimeMillis() - started);
+        lastRuns.put(stats.getPath(), stats);
+    }
+
+    /**
+     * Writes the loose objects of the repository into a new pack and deletes them, without reading through or copying
+     * any object borrowed through alternates and without dropping unreachable objects. If that would leave more than
+     * the maximum number of packs, every object in the repository's own packs is written into the new pack too and
+     * the old packs are deleted. Objects written while the pack is built stay loose until the next run.
+     *
+     * @param repository - the repository
+     * @param maxPackFiles - maximum number of packs to leave
+     * @return - the number of objects packed
+     * @throws IOException - failed to read an object or write the pack
+     */
+    static int packObjects(final FileRepository repository, final int maxPackFiles) throws IOException {
+        val loose = looseObjects(repository);
+        val packs = repository.getObjectDatabase().getPacks().stream()
+                .filter(p -> !p.shouldBeKept())
+                .collect(Collectors.toList());
+        val merge = packs.size() + (loose.isEmpty() ? 0 : 1) > Math.max(1, maxPackFiles);
+        if (loose.isEmpty() && !merge) {
+            return 0;
+        }
+        val ids = new LinkedHashSet<ObjectId>(loose.keySet());
+        if (merge) {
+            for (val pack : packs) {
+                for (val entry : pack) {
+                    ids.add(entry.toObjectId());
+                }
+            }
+        }
+        val name = writePack(repository, ids);
+        repository.getObjectDatabase().refresh();
+        if (merge) {
+            for (val pack : packs) {
+                if (!pack.getPackFile().getName().equals(name + ".pack")) {
+                    deletePack(pack);
+                }
+            }
+            repository.getObjectDatabase().refresh();
+        }
+        for (val file : loose.values()) {
+            Files.deleteIfExists(file);
+        }
+        return ids.size();
+    }
+
+    /**
+     * Loose object files of the repository by object id.
+     */
+    private static Map<ObjectId, Path> looseObjects(final FileRepository repository) throws IOException {
+        val loose = new LinkedHashMap<ObjectId, Path>();
+        try (val dirs = Files.list(repository.getObjectsDirectory().toPath())) {
+            for (val dir : dirs.filter(d -> d.getFileName().toString().length() == 2).collect(Collectors.toList())) {
+                try (val files = Files.list(dir)) {
+                    files.forEach(f -> {
+                        val name = dir.getFileName().toString() + f.getFileName();
+                        if (ObjectId.isId(name)) {
+                            loose.put(ObjectId.fromString(name), f);
+                        }
+                    });
+                }
+            }
+        }
+        return loose;
+    }
+
+    /**
+     * Writes the objects into a new pack next to the existing ones, index first so no reader sees the pack without
+     * its index.
+     *
+     * @return - the file name of the pack without extension
+     */
+    private static String writePack(final FileRepository repository, final Collection<ObjectId> ids) throws IOException {
+        val packDir = repository.getObjectsDirectory().toPath().resolve("pack");
+        Files.createDirectories(packDir);
+        val tempPack = Files.createTempFile(packDir, "mgmt_", ".pack");
+        val tempIndex = Files.createTempFile(packDir, "mgmt_", ".idx");
+        try (val reader = repository.newObjectReader();
+             val walk = new RevWalk(reader);
+             val writer = new PackWriter(new PackConfig(repository), reader)) {
+            val objects = new ArrayList<RevObject>();
+            for (val id : ids) {
+                objects.add(walk.parseAny(id));
+            }
+            writer.preparePack(objects.iterator());
+            try (val out = Files.newOutputStream(tempPack)) {
+                writer.writePack(NullProgressMonitor.INSTANCE, NullProgressMonitor.INSTANCE, out);
+            }
+            try (val out = Files.newOutputStream(tempIndex)) {
+                writer.writeIndex(out);
+            }
+            val name = "pack-" + writer.computeName().name();
+            Files.move(tempIndex, packDir.resolve(name + ".idx"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempPack, packDir.resolve(name + ".pack"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return name;
+        } finally {
+            Files.deleteIfExists(tempPack);
+            Files.deleteIfExists(tempIndex);
+        }
+    }
+
+    /**
+     * Deletes a pack whose objects were merged into another, the pack file first so no reader finds it without its
+     * index.
+     */
+    private static void deletePack(final PackFile pack) throws IOException {
+        pack.close();
+        val packFile = pack.getPackFile().toPath();
+        val base = StringUtils.removeEnd(packFile.getFileName().toString(), ".pack");
+        Files.deleteIfExists(packFile);
+        for (val extension : List.of(".idx", ".bitmap")) {
+            Files.deleteIfExists(packFile.resolveSibling(base + extension));
+        }
+    }
+
+    private static boolean hasAlternates(final File gitDir) {
+        return new File(gitDir, "objects/info/alternates").isFile();
+    }
+
+    /**
+     * Time the repository was last changed, taken from the HEAD reflog and the index.
+     */
+    private static long lastChanged(final File gitDir) {
+        return Math.max(new File(gitDir, Constants.LOGS + '/' + Constants.HEAD).lastModified(),
+                new File(gitDir, "index").lastModified());
+    }
+
+    /**
+     * Removes reflog entries older than the cutoff from every reflog of the repository. The newest entry of each reflog
+     * is always kept.
+     *
+     * <p>
+     * Git appends to a reflog while holding the lock of its ref, and to the HEAD reflog while holding the lock of the
+     * branch HEAD points to. Each reflog is read and rewritten while holding those locks, so no entry appended
+     * meanwhile is lost. A reflog whose ref is locked is skipped until the next run.
+     *
+     * @param gitDir - the git directory
+     * @param cutoff - entries older than this time in milliseconds are removed
+     * @return - the number of entries removed
+     * @throws IOException - failed to read or write a reflog
+     */
+    static int expireReflogs(final File gitDir, final long cutoff) throws IOException {
+        val logs = gitDir.toPath().resolve(Constants.LOGS);
+        if (!Files.isDirectory(logs)) {
+            return 0;
+        }
+        final List<Path> files;
+        try (val walk = Files.walk(logs)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        var expired = 0;
+        for (val file : files) {
+            val refName = StreamSupport.stream(logs.relativize(file).spliterator(), false)
+                    .map(Path::toString).collect(Collectors.joining("/"));
+            val locks = new ArrayList<LockFile>();
+            try {
+                if (lockAll(locks, refLocks(gitDir, refName)) && lockAll(locks, List.of(file.toFile()))) {
+                    expired += expireReflog(file, cutoff, locks.get(locks.size() - 1));
+                } else {
+                    LOGGER.debug("Skipping reflog [{}] of [{}], its ref is locked", refName, gitDir);
+                }
+            } finally {
+                locks.forEach(LockFile::unlock);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Rewrites the reflog without the expired entries through its lock.
+     */
+    private static int expireReflog(final Path file, final long cutoff, final LockFile lock) throws IOException {
+        val lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        val kept = new ArrayList<String>();
+        for (var i = 0; i < lines.size(); i++) {
+            if (i == lines.size() - 1 || entryTime(lines.get(i)) >= cutoff) {
+                kept.add(lines.get(i));
+            }
+        }
+        if (kept.size() == lines.size()) {
+            return 0;
+        }
+        lock.write(kept.stream().map(l -> l + '\n').collect(Collectors.joining()).getBytes(StandardCharsets.UTF_8));
+        return lock.commit() ? lines.size() - kept.size() : 0;
+    }
+
+    /**
+     * Files whose locks are held while the ref is updated: the ref itself and, for HEAD, the branch it points to.
+     */
+    private static List<File> refLocks(final File gitDir, final String refName) throws IOException {
+        val refs = new ArrayList<File>();
+        refs.add(new File(gitDir, refName));
+        if (Constants.HEAD.equals(refName)) {
+            val head = new File(gitDir, Constants.HEAD);
+            if (head.isFile()) {
+                val target = StringUtils.substringAfter(Files.readString(head.toPath(), StandardCharsets.UTF_8).trim(), "ref: ");
+                if (StringUtils.isNotBlank(target)) {
+                    refs.add(new File(gitDir, target));
+                }
+            }
+        }
+        return refs;
+    }
+
+    private static boolean lockAll(final List<LockFile> held, final List<File> files) throws IOException {
+        for (val file : files) {
+            val lock = new LockFile(file);
+            if (!lock.lock()) {
+                return false;
+            }
+            held.add(lock);
+        }
+        return true;
+    }
+
+    /**
+     * Time of a reflog entry of the form {@code old new name <email> seconds tz\tmessage}, in milliseconds.
+     */
+    private static long entryTime(final String line) {
+        val header = StringUtils.substringBefore(line, "\t");
+        val fields = Splitter.on(' ').splitToList(header);
+        try {
+            return Long.parseLong(fields.get(fields.size() - 2)) * 1000L;
+        } catch (final NumberFormatException | IndexOutOfBoundsException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static FileRepository open(final File gitDir) throws IOException {
+        return (FileRepository) new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true).build();
+    }
+}
@@ -0,0 +1,156 @@
+package org.apereo.cas.mgmt;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.Closeable;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Tracks which service files change in the working trees of the management repositories.
+ * A single {@link WatchService} is shared by every repository so the number of open file system watchers does not
+ * grow with the number of users. Events are not processed on a background thread, they are collected from the
+ * watch service whenever a repository asks for its changes.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class ServiceChangeTracker implements Closeable {
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Set<Watch>> watches = new ConcurrentHashMap<>();
+
+    @SneakyThrows
+    public ServiceChangeTracker() {
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Starts tracking changes to files in the passed directory.
+     *
+     * @param dir - working tree of the repository
+     * @return - watch collecting the changes
+     */
+    @SneakyThrows
+    public Watch watch(final Path dir) {
+        val key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        val watch = new Watch(dir, key);
+        watches.computeIfAbsent(key, k -> new CopyOnWriteArraySet<>()).add(watch);
+        LOGGER.debug("Tracking service changes in [{}]", dir);
+        return watch;
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+        watches.clear();
+        watchService.close();
+    }
+
+    private synchronized void dispatch() {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            val targets = watches.getOrDefault(key, Set.of());
+            for (val event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    targets.forEach(Watch::invalidate);
+                } else {
+                    targets.forEach(w -> w.record((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                targets.forEach(Watch::invalidate);
+            }
+        }
+    }
+
+    private void release(final Watch watch) {
+        watches.computeIfPresent(watch.key, (k, set) -> {
+            set.remove(watch);
+            if (set.isEmpty()) {
+                k.cancel();
+                return null;
+            }
+            return set;
+        });
+    }
+
+    /**
+     * Changes collected for a single repository since they were last drained.
+     */
+    @RequiredArgsConstructor
+    public class Watch implements Closeable {
+        private final Path dir;
+        private final WatchKey key;
+        private final Set<Path> changed = new HashSet<>();
+        private boolean overflow;
+
+        /**
+         * Returns true if any file has changed since the last drain.
+         *
+         * @return - true if changed
+         */
+        public boolean hasChanges() {
+            dispatch();
+            synchronized (this) {
+                return overflow || !changed.isEmpty();
+            }
+        }
+
+        /**
+         * Marks the working tree as changed in ways the events can not describe, forcing a full reload.
+         */
+        public synchronized void invalidate() {
+            overflow = true;
+        }
+
+        /**
+         * Returns the changes collected since the last drain and starts collecting again.
+         *
+         * @return - the changes
+         */
+        public Changes drain() {
+            dispatch();
+            synchronized (this) {
+                val changes = new Changes(Set.copyOf(changed), overflow);
+                changed.clear();
+                overflow = false;
+                return changes;
+            }
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        private synchronized void record(final Path file) {
+            changed.add(dir.resolve(file));
+        }
+    }
+
+    /**
+     * Files that were created, modified or deleted in a working tree. When overflow is set some events were lost
+     * and the whole working tree must be reloaded.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Changes {
+        private final Set<Path> files;
+        private final boolean overflow;
+    }
+}
@@ -0,0 +1,205 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.configuration.CasManagementConfigurationProperties;
+import org.apereo.cas.configuration.model.CasServers;
+import org.apereo.cas.mgmt.domain.NodeDistribution;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Distributes published service files to the service registry directory of each configured CAS server. Only the
+ * files that changed between two published commits are written or deleted, and the servers are written to in
+ * parallel. A full distribution writes every file in the published commit and deletes the service files it does not
+ * contain. Each file is written to a temporary file next to it and renamed into place, so a server never reads a
+ * partly written definition.
+ *
+ * <p>
+ * A server whose attempt fails is retried from the start, which is safe because every change is idempotent. The
+ * outcome for each server is returned as a {@link NodeDistribution}.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ServiceDistributor {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String SERVICE_SUFFIX = ".json";
+
+    private final CasManagementConfigurationProperties managementProperties;
+
+    /**
+     * Returns true if distribution is enabled and at least one server has a services directory.
+     *
+     * @return - true if enabled
+     */
+    public boolean isEnabled() {
+        return managementProperties.getVersionControl().getDistribution().isEnabled() && !servers().isEmpty();
+    }
+
+    /**
+     * Distributes the files that changed between two commits. A null old commit distributes every file in the new
+     * commit and deletes the other service files from each server.
+     *
+     * @param git - the repository
+     * @param oldCommit - the previously published commit or null
+     * @param newCommit - the newly published commit
+     * @return - the outcome for each server
+     * @throws IOException - failed to read the changes from the repository
+     */
+    public List<NodeDistribution> distribute(final GitUtil git, final ObjectId oldCommit, final ObjectId newCommit) throws IOException {
+        val writes = new LinkedHashMap<String, byte[]>();
+        val deletes = new ArrayList<String>();
+        for (val diff : git.getTreeDiffs(oldCommit, newCommit)) {
+            if (diff.getChangeType() == DiffEntry.ChangeType.DELETE || diff.getChangeType() == DiffEntry.ChangeType.RENAME) {
+                deletes.add(diff.getOldPath());
+            }
+            if (diff.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                writes.put(diff.getNewPath(), git.readBytes(diff.getNewId().toObjectId()));
+            }
+        }
+        return distribute(writes, deletes, oldCommit == null);
+    }
+
+    /**
+     * Deletes and then writes the files in the services directory of every server, in parallel.
+     *
+     * @param writes - content of the files to write, by path relative to the services directory
+     * @param deletes - paths of the files to delete, relative to the services directory
+     * @param full - true if the writes are every service, so service files not among them are deleted
+     * @return - the outcome for each server
+     */
+    public List<NodeDistribution> distribute(final Map<String, byte[]> writes, final Collection<String> deletes, final boolean full) {
+        val servers = servers();
+        if (servers.isEmpty() || !full && writes.isEmpty() && deletes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        val threads = Math.max(1, Math.min(servers.size(), managementProperties.getVersionControl().getDistribution().getThreads()));
+        val executor = Executors.newFixedThreadPool(threads);
+        try {
+            val reports = servers.stream()
+                    .map(s -> CompletableFuture.supplyAsync(() -> distribute(s, writes, deletes, full), executor))
+                    .collect(Collectors.toList());
+            return reports.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private NodeDistribution distribute(final CasServers server, final Map<String, byte[]> writes,
+                                        final Collection<String> deletes, final boolean full) {
+        val distribution = managementProperties.getVersionControl().getDistribution();
+        val report = new NodeDistribution();
+        report.setName(server.getName());
+        report.setServicesDir(server.getServicesDir());
+        report.setWritten(writes.size());
+        val started = System.currentTimeMillis();
+        val dir = Paths.get(server.getServicesDir());
+        for (var attempt = 1; attempt <= distribution.getRetries() + 1; attempt++) {
+            report.setAttempts(attempt);
+            try {
+                report.setDeleted(apply(dir, writes, deletes, full));
+                report.setSuccess(true);
+                report.setError(null);
+                break;
+            } catch (final IOException e) {
+                report.setError(e.getMessage());
+                LOGGER.warn("Attempt [{}] to distribute services to [{}] failed: [{}]", attempt, server.getName(), e.getMessage());
+            }
+            if (attempt <= distribution.getRetries()) {
+                try {
+                    Thread.sleep(Duration.parse(distribution.getRetryDelay()).toMillis());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        report.setDuration(System.currentTimeMillis() - started);
+        LOGGER.info("Distributed [{}] written and [{}] deleted services to [{}]: [{}]", report.getWritten(),
+                report.getDeleted(), server.getName(), report.isSuccess() ? "COMPLETED" : "FAILED");
+        return report;
+    }
+
+    /**
+     * Applies the changes to one directory. The directory itself is never created, so a missing mount fails instead
+     * of filling the local disk.
+     *
+     * @param dir - the services directory
+     * @param writes - content of the files to write, by relative path
+     * @param deletes - relative paths of the files to delete
+     * @param full - true to also delete the service files that are not written
+     * @return - the number of files deleted
+     * @throws IOException - failed
+     */
+    static int apply(final Path dir, final Map<String, byte[]> writes, final Collection<String> deletes,
+                     final boolean full) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new NoSuchFileException(dir.toString());
+        }
+        val stale = new LinkedHashSet<String>(deletes);
+        if (full) {
+            stale.addAll(stale(dir, writes.keySet()));
+        }
+        var deleted = 0;
+        for (val path : stale) {
+            if (Files.deleteIfExists(dir.resolve(path))) {
+                deleted++;
+            }
+        }
+        for (val write : writes.entrySet()) {
+            val target = dir.resolve(write.getKey());
+            Files.createDirectories(target.getParent());
+            val temp = target.resolveSibling('.' + target.getFileName().toString() + TEMP_SUFFIX);
+            Files.write(temp, write.getValue());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return deleted;
+    }
+
+    /**
+     * Relative paths of the service files in the directory that are not among the kept paths.
+     */
+    private static List<String> stale(final Path dir, final Set<String> kept) throws IOException {
+        try (val files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(f -> f.getFileName().toString().endsWith(SERVICE_SUFFIX))
+                    .map(f -> StreamSupport.stream(dir.relativize(f).spliterator(), false)
+                            .map(Path::toString).collect(Collectors.joining("/")))
+                    .filter(f -> !kept.contains(f))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<CasServers> servers() {
+        return managementProperties.getCasServers().stream()
+                .filter(s -> StringUtils.isNotBlank(s.getServicesDir()))
+                .collect(Collectors.toList());
+    }
+}
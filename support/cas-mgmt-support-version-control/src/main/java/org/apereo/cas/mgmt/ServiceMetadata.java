@@ -0,0 +1,101 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+import org.apereo.cas.services.RegisteredService;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+
+/**
+ * The fields of a service definition shown in change and history listings, read without building the service.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+@Value
+public class ServiceMetadata {
+
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .enable(JsonParser.Feature.ALLOW_COMMENTS)
+            .enable(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
+
+    /**
+     * Id of the service.
+     */
+    long id;
+
+    /**
+     * Name of the service.
+     */
+    String name;
+
+    /**
+     * Service id pattern of the service.
+     */
+    String serviceId;
+
+    /**
+     * Type of the service as returned by {@link CasManagementUtils#getType(String)}.
+     */
+    String type;
+
+    /**
+     * Returns the metadata of a service that has already been built.
+     *
+     * @param service - the service
+     * @return - the metadata
+     */
+    public static ServiceMetadata of(final RegisteredService service) {
+        return new ServiceMetadata(service.getId(), service.getName(), service.getServiceId(),
+                CasManagementUtils.getType(service));
+    }
+
+    /**
+     * Reads the metadata from the top level fields of a service definition. Definitions the streaming parser can't
+     * read, such as hjson files, are parsed in full instead.
+     *
+     * @param json - the service definition
+     * @return - the metadata
+     */
+    public static ServiceMetadata parse(final String json) {
+        try (val parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return of(CasManagementUtils.fromJson(json));
+            }
+            String type = null;
+            String name = null;
+            String serviceId = null;
+            Long id = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                val field = parser.getCurrentName();
+                val token = parser.nextToken();
+                if ("@class".equals(field) && token == JsonToken.VALUE_STRING) {
+                    type = parser.getText();
+                } else if ("name".equals(field) && token == JsonToken.VALUE_STRING) {
+                    name = parser.getText();
+                } else if ("serviceId".equals(field) && token == JsonToken.VALUE_STRING) {
+                    serviceId = parser.getText();
+                } else if ("id".equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+                    id = parser.getLongValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (type == null || id == null) {
+                return of(CasManagementUtils.fromJson(json));
+            }
+            return new ServiceMetadata(id, name, serviceId, CasManagementUtils.getType(type));
+        } catch (final IOException e) {
+            LOGGER.trace("Falling back to a full parse: [{}]", e.getMessage());
+            return of(CasManagementUtils.fromJson(json));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.apereo.cas.mgmt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.SneakyThrows;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded cache of {@link ServiceMetadata} keyed by the id of the blob it was read from. Like {@link DiffCache} it
+ * never goes stale and is shared by every repository. It is filled when a blob is first listed and when the master
+ * snapshot parses a newly committed service.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class ServiceMetadataCache {
+
+    private final Cache<ObjectId, ServiceMetadata> metadata;
+
+    public ServiceMetadataCache(final long maximumSize) {
+        this.metadata = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the metadata of the blob, reading the blob and parsing it on a miss.
+     *
+     * @param id - the blob id
+     * @param json - reads the blob on a miss
+     * @return - the metadata
+     */
+    @SneakyThrows
+    public ServiceMetadata get(final AnyObjectId id, final Callable<String> json) {
+        try {
+            return metadata.get(id.copy(), () -> ServiceMetadata.parse(json.call()));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Adds the metadata of a blob that has already been parsed.
+     *
+     * @param id - the blob id
+     * @param value - the metadata
+     */
+    public void put(final AnyObjectId id, final ServiceMetadata value) {
+        metadata.put(id.copy(), value);
+    }
+
+    /**
+     * Returns hit, miss, load and eviction counts for the cache.
+     *
+     * @return - the stats
+     */
+    public CacheStats stats() {
+        return metadata.stats();
+    }
+
+    /**
+     * Returns the number of blobs in the cache.
+     *
+     * @return - the size
+     */
+    public long size() {
+        return metadata.size();
+    }
+}
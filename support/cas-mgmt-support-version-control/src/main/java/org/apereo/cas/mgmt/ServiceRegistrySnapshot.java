@@ -0,0 +1,91 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+import org.apereo.cas.services.RegisteredService;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable view of the services committed to the master repository, parsed once and indexed by the id of the blob
+ * they were read from. Delegated users' registries share these instances for every file in their working tree that is
+ * byte-identical to a blob in master, so each clone only parses the files the user has changed. Each newly parsed
+ * service also fills the metadata cache, so committed services are listed without being read again.
+ *
+ * <p>
+ * Services in a snapshot are shared between users and must never be modified. Callers that change a service they
+ * have looked up take a copy first with {@link CasManagementUtils#copy(RegisteredService)}.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ServiceRegistrySnapshot {
+
+    /**
+     * Commit the snapshot was read from.
+     */
+    @Getter
+    private final ObjectId commit;
+
+    private final Map<ObjectId, RegisteredService> byBlob;
+
+    /**
+     * Reads the services in the HEAD commit of the passed repository. Blobs that were already parsed into the previous
+     * snapshot are carried over instead of being parsed again.
+     *
+     * @param git - the master repository
+     * @param previous - the previous snapshot or null
+     * @return - the snapshot
+     * @throws Exception - failed to read the repository
+     */
+    public static ServiceRegistrySnapshot read(final GitUtil git, final ServiceRegistrySnapshot previous) throws Exception {
+        val head = git.getRepository().resolve(Constants.HEAD);
+        if (previous != null && Objects.equals(previous.commit, head)) {
+            return previous;
+        }
+        val byBlob = new HashMap<ObjectId, RegisteredService>();
+        var parsed = 0;
+        try (val reader = git.objectReader()) {
+            for (val blob : git.treeBlobs(Constants.HEAD).entrySet()) {
+                if (!blob.getKey().endsWith(".json")) {
+                    continue;
+                }
+                val id = blob.getValue();
+                var service = previous != null ? previous.byBlob.get(id) : null;
+                if (service == null) {
+                    service = CasManagementUtils.fromJson(new String(reader.open(id).getBytes(), StandardCharsets.UTF_8));
+                    parsed++;
+                    if (service != null) {
+                        git.cacheMetadata(id, service);
+                    }
+                }
+                if (service != null) {
+                    byBlob.put(id, service);
+                }
+            }
+        }
+        LOGGER.debug("Read master snapshot at [{}] with [{}] services, [{}] parsed", head, byBlob.size(), parsed);
+        return new ServiceRegistrySnapshot(head, Map.copyOf(byBlob));
+    }
+
+    /**
+     * Returns the shared service read from the passed blob, or null if the blob is not in the snapshot.
+     *
+     * @param blob - the blob id
+     * @return - the service or null
+     */
+    public RegisteredService get(final ObjectId blob) {
+        return byBlob.get(blob);
+    }
+}
@@ -0,0 +1,316 @@
+package org.apereo.cas.mgmt;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.internal.storage.file.FileSnapshot;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cached working tree status of one repository, shared by every {@link GitUtil} opened on it.
+ *
+ * <p>
+ * The status is recomputed in full when HEAD or the index has changed, when {@link #invalidate()} was called by a
+ * write through {@link GitUtil}, or when the file system watch lost events. Otherwise only the paths the watch reports
+ * as changed are compared again and merged into the cached status. The watch only sees the top level of the working
+ * tree, so a working tree with subdirectories other than .git is always scanned in full.
+ *
+ * <p>
+ * Alongside the status the cache indexes the modified and untracked files by the blob id of their content, so a blob
+ * that is not yet in the object database can be read straight from its file.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class StatusCache implements Closeable {
+
+    private final ServiceChangeTracker.Watch watch;
+
+    private Snapshot snapshot;
+
+    private ObjectId head;
+
+    private FileSnapshot index;
+
+    private boolean flat;
+
+    private boolean invalid = true;
+
+    private boolean closed;
+
+    private final Map<String, ObjectId> blobsByPath = new HashMap<>();
+
+    private final Map<ObjectId, String> pathsByBlob = new HashMap<>();
+
+    public StatusCache(final ServiceChangeTracker.Watch watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * Returns the status of the repository, recomputing only what changed since the last call.
+     *
+     * @param repository - the repository
+     * @return - the status
+     * @throws IOException - failed to read the repository or the working tree
+     */
+    public synchronized Status status(final Repository repository) throws IOException {
+        val changes = watch.drain();
+        val currentHead = repository.resolve(Constants.HEAD);
+        val indexFile = repository.getIndexFile();
+        if (snapshot == null || invalid || closed || !flat || changes.isOverflow()
+                || !Objects.equals(head, currentHead) || index.isModified(indexFile)) {
+            invalid = false;
+            head = currentHead;
+            index = FileSnapshot.save(indexFile);
+            snapshot = new Snapshot(repository, diff(repository, null));
+            flat = isFlat(repository.getWorkTree().toPath());
+            indexBlobs(repository, null);
+            LOGGER.trace("Computed full status of [{}]", repository.getWorkTree());
+        } else if (!changes.getFiles().isEmpty()) {
+            val workTree = repository.getWorkTree().toPath();
+            val paths = changes.getFiles().stream()
+                    .map(f -> workTree.relativize(f).toString().replace(File.separatorChar, '/'))
+                    .filter(p -> !p.equals(Constants.DOT_GIT) && !p.startsWith(Constants.DOT_GIT + '/'))
+                    .collect(Collectors.toSet());
+            if (!paths.isEmpty()) {
+                snapshot = snapshot.merge(repository, paths, diff(repository, paths));
+                indexBlobs(repository, paths);
+                LOGGER.trace("Recomputed status of [{}] paths in [{}]", paths.size(), workTree);
+            }
+        }
+        return new Status(snapshot);
+    }
+
+    /**
+     * Returns the path of the modified or untracked file whose content has the passed blob id, bringing the status
+     * up to date first.
+     *
+     * @param repository - the repository
+     * @param id - the blob id
+     * @return - the path relative to the working tree, or null if no changed file has that content
+     * @throws IOException - failed to read the repository or the working tree
+     */
+    public synchronized String workingTreePath(final Repository repository, final AnyObjectId id) throws IOException {
+        status(repository);
+        return pathsByBlob.get(id.copy());
+    }
+
+    /**
+     * Forces the next call to recompute the whole status.
+     */
+    public synchronized void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * Stops watching the working tree. Every later call recomputes the whole status.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        watch.close();
+    }
+
+    private static IndexDiff diff(final Repository repository, final Set<String> paths) throws IOException {
+        val diff = new IndexDiff(repository, Constants.HEAD, new FileTreeIterator(repository));
+        if (paths != null) {
+            diff.setFilter(PathFilterGroup.createFromStrings(paths));
+        }
+        diff.diff();
+        return diff;
+    }
+
+    /**
+     * Hashes the modified and untracked files among the paths, or all of them if paths is null, and replaces their
+     * entries in the blob index.
+     */
+    private void indexBlobs(final Repository repository, final Set<String> paths) throws IOException {
+        if (paths == null) {
+            blobsByPath.clear();
+            pathsByBlob.clear();
+        } else {
+            paths.forEach(p -> {
+                val old = blobsByPath.remove(p);
+                if (old != null) {
+                    pathsByBlob.remove(old, p);
+                }
+            });
+        }
+        val pending = new HashSet<String>(snapshot.getModified());
+        pending.addAll(snapshot.getUntracked());
+        if (paths != null) {
+            pending.retainAll(paths);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        try (val walk = new TreeWalk(repository)) {
+            walk.addTree(new FileTreeIterator(repository));
+            walk.setRecursive(true);
+            walk.setFilter(PathFilterGroup.createFromStrings(pending));
+            while (walk.next()) {
+                val id = walk.getObjectId(0).copy();
+                blobsByPath.put(walk.getPathString(), id);
+                pathsByBlob.put(id, walk.getPathString());
+            }
+        }
+    }
+
+    private static boolean isFlat(final Path workTree) throws IOException {
+        try (val files = Files.list(workTree)) {
+            return files.noneMatch(p -> Files.isDirectory(p) && !p.getFileName().toString().equals(Constants.DOT_GIT));
+        }
+    }
+
+    /**
+     * Immutable copy of the results of an {@link IndexDiff}, handed to {@link Status} in place of the diff.
+     */
+    private static class Snapshot extends IndexDiff {
+        private final Set<String> added;
+        private final Set<String> changed;
+        private final Set<String> removed;
+        private final Set<String> missing;
+        private final Set<String> modified;
+        private final Set<String> untracked;
+        private final Set<String> untrackedFolders;
+        private final Set<String> ignoredNotInIndex;
+        private final Set<String> assumeUnchanged;
+        private final Map<String, StageState> conflicts;
+
+        Snapshot(final Repository repository, final IndexDiff diff) throws IOException {
+            this(repository, diff.getAdded(), diff.getChanged(), diff.getRemoved(), diff.getMissing(),
+                    diff.getModified(), diff.getUntracked(), diff.getUntrackedFolders(), diff.getIgnoredNotInIndex(),
+                    diff.getAssumeUnchanged(), diff.getConflictingStageStates());
+        }
+
+        Snapshot(final Repository repository, final Set<String> added, final Set<String> changed, final Set<String> removed,
+                 final Set<String> missing, final Set<String> modified, final Set<String> untracked,
+                 final Set<String> untrackedFolders, final Set<String> ignoredNotInIndex,
+                 final Set<String> assumeUnchanged, final Map<String, StageState> conflicts) throws IOException {
+            super(repository, (ObjectId) null, (WorkingTreeIterator) null);
+            this.added = Set.copyOf(added);
+            this.changed = Set.copyOf(changed);
+            this.removed = Set.copyOf(removed);
+            this.missing = Set.copyOf(missing);
+            this.modified = Set.copyOf(modified);
+            this.untracked = Set.copyOf(untracked);
+            this.untrackedFolders = Set.copyOf(untrackedFolders);
+            this.ignoredNotInIndex = Set.copyOf(ignoredNotInIndex);
+            this.assumeUnchanged = Set.copyOf(assumeUnchanged);
+            this.conflicts = Map.copyOf(conflicts);
+        }
+
+        /**
+         * Returns a copy with the entries for the paths replaced by the results of a diff limited to them.
+         */
+        Snapshot merge(final Repository repository, final Set<String> paths, final IndexDiff diff) throws IOException {
+            val remaining = new HashMap<String, StageState>(conflicts);
+            remaining.keySet().removeIf(p -> touches(paths, p));
+            remaining.putAll(diff.getConflictingStageStates());
+            return new Snapshot(repository, merge(added, paths, diff.getAdded()), merge(changed, paths, diff.getChanged()),
+                    merge(removed, paths, diff.getRemoved()), merge(missing, paths, diff.getMissing()),
+                    merge(modified, paths, diff.getModified()), merge(untracked, paths, diff.getUntracked()),
+                    merge(untrackedFolders, paths, diff.getUntrackedFolders()),
+                    merge(ignoredNotInIndex, paths, diff.getIgnoredNotInIndex()),
+                    merge(assumeUnchanged, paths, diff.getAssumeUnchanged()), remaining);
+        }
+
+        private static Set<String> merge(final Set<String> cached, final Set<String> paths, final Set<String> recomputed) {
+            val merged = new HashSet<String>(cached);
+            merged.removeIf(p -> touches(paths, p));
+            merged.addAll(recomputed);
+            return merged;
+        }
+
+        /**
+         * True if the entry is one of the paths or lies under one of them, matching what the path filter compares.
+         */
+        private static boolean touches(final Set<String> paths, final String entry) {
+            if (paths.contains(entry)) {
+                return true;
+            }
+            for (var i = entry.indexOf('/'); i > 0; i = entry.indexOf('/', i + 1)) {
+                if (paths.contains(entry.substring(0, i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Set<String> getAdded() {
+            return added;
+        }
+
+        @Override
+        public Set<String> getChanged() {
+            return changed;
+        }
+
+        @Override
+        public Set<String> getRemoved() {
+            return removed;
+        }
+
+        @Override
+        public Set<String> getMissing() {
+            return missing;
+        }
+
+        @Override
+        public Set<String> getModified() {
+            return modified;
+        }
+
+        @Override
+        public Set<String> getUntracked() {
+            return untracked;
+        }
+
+        @Override
+        public Set<String> getUntrackedFolders() {
+            return untrackedFolders;
+        }
+
+        @Override
+        public Set<String> getIgnoredNotInIndex() {
+            return ignoredNotInIndex;
+        }
+
+        @Override
+        public Set<String> getAssumeUnchanged() {
+            return assumeUnchanged;
+        }
+
+        @Override
+        public Set<String> getConflicting() {
+            return conflicts.keySet();
+        }
+
+        @Override
+        public Map<String, StageState> getConflictingStageStates() {
+            return conflicts;
+        }
+    }
+}
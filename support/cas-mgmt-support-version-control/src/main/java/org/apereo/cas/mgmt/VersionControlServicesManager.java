@@ -1,5 +1,6 @@
 package org.apereo.cas.mgmt;
 
+import org.apereo.cas.mgmt.authentication.CasUserProfile;
 import org.apereo.cas.mgmt.domain.RegisteredServiceItem;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.ServicesManager;
@@ -10,9 +11,12 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.eclipse.jgit.api.Status;
 
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -23,56 +27,95 @@ import java.util.stream.Stream;
  * @since 6.0.0
  */
 @Slf4j
-public class VersionControlServicesManager extends ManagementServicesManager {
+public class VersionControlServicesManager extends ManagementServicesManager implements AutoCloseable {
+
+    private static final String MODIFY = "MODIFY";
+    private static final String DELETE = "DELETE";
+    private static final String ADD = "ADD";
 
     private final GitUtil git;
-    private long lastModified;
+    private final IncrementalJsonServiceRegistry registry;
 
     public VersionControlServicesManager(final ServicesManager servicesManager,
                                          final RegisteredServiceResourceNamingStrategy namingStrategy,
-                                         final GitUtil git) {
+                                         final GitUtil git,
+                                         final IncrementalJsonServiceRegistry registry) {
         super(servicesManager, namingStrategy);
         this.git = git;
-        changed();
+        this.registry = registry;
     }
 
     @Override
     @SneakyThrows
     public List<RegisteredServiceItem> getServiceItems(final Stream<RegisteredService> services) {
-        val status = git.status();
-        return services.map(this::createServiceItem)
-                .peek(item -> item.setStatus(determineStatus(item.getAssignedId(), status)))
+        val statuses = statusById(git.status());
+        return super.getServiceItems(services).stream()
+                .map(item -> withStatus(item, statuses.get(item.getAssignedId())))
                 .collect(Collectors.toList());
     }
 
-    public String determineStatus(final String id, final Status status) {
-        if (status.getModified().stream().anyMatch(f -> f.contains(id))) {
-            return "MODIFY";
-        }
-        if (status.getRemoved().stream().anyMatch(f -> f.contains(id))) {
-            return "DELETE";
-        }
-        if (status.getAdded().stream().anyMatch(f -> f.contains(id))
-                || status.getUntracked().stream().anyMatch(f -> f.contains(id))) {
-            return "ADD";
+    /**
+     * Cached projections are shared between requests, so only services with a status get a copy of their item.
+     */
+    private static RegisteredServiceItem withStatus(final RegisteredServiceItem item, final String status) {
+        if (status == null) {
+            return item;
         }
-        return null;
+        return new RegisteredServiceItem(item.getEvalOrder(), item.getAssignedId(), item.getServiceId(),
+                item.getName(), item.getDescription(), status, item.getType());
     }
 
-    private boolean changed() {
-        val max = Arrays.stream(git.getRepository().getWorkTree().getAbsoluteFile().listFiles())
-                .map(f -> f.lastModified())
-                .max(Long::compare).get();
-        if (this.lastModified == max) {
-            return false;
-        }
-        this.lastModified = max;
-        return true;
+    /**
+     * Returns the working tree status of the service with the passed id.
+     *
+     * @param id - the service id
+     * @param status - the repository status
+     * @return - MODIFY, DELETE, ADD or null if unchanged
+     */
+    public String determineStatus(final String id, final Status status) {
+        return statusById(status).get(id);
+    }
+
+    /**
+     * Maps each service id found in the status to its change. Ids are parsed from the file names built by the
+     * naming strategy, and when a service appears in several sets MODIFY wins over DELETE, which wins over ADD.
+     */
+    private static Map<String, String> statusById(final Status status) {
+        val statuses = new HashMap<String, String>();
+        putStatus(statuses, status.getUntracked(), ADD);
+        putStatus(statuses, status.getAdded(), ADD);
+        putStatus(statuses, status.getRemoved(), DELETE);
+        putStatus(statuses, status.getModified(), MODIFY);
+        return statuses;
     }
 
+    private static void putStatus(final Map<String, String> statuses, final Set<String> files, final String change) {
+        files.forEach(f -> {
+            val id = IncrementalJsonServiceRegistry.serviceId(f);
+            if (id != null) {
+                statuses.put(id.toString(), change);
+            }
+        });
+    }
+
+    /**
+     * Reloads the services whose files changed in the working tree since the last load. Returns null without touching
+     * the registry when nothing has changed.
+     *
+     * @return - the loaded services or null
+     */
     @Override
-    public Collection<RegisteredService> load() {
-        return changed() ? super.load() : null;
+    public synchronized Collection<RegisteredService> load() {
+        if (!registry.isModified()) {
+            return null;
+        }
+        val services = loadManager();
+        if (registry.isLastLoadFull()) {
+            reindexAll();
+        } else {
+            reindex(registry.getLastUpdated(), registry.getLastRemoved());
+        }
+        return services;
     }
 
     /**
@@ -80,6 +123,7 @@ public class VersionControlServicesManager extends ManagementServicesManager {
      */
     public void rebase() {
         this.git.rebase();
+        this.registry.invalidate();
     }
 
     /**
@@ -102,37 +146,34 @@ public class VersionControlServicesManager extends ManagementServicesManager {
         }
     }
 
+    /**
+     * Commits the files of the passed services as a single commit. The old file of a renamed service is included, so
+     * the rename is recorded, but no other working change is.
+     *
+     * @param user - the user making the changes
+     * @param message - commit message
+     * @param services - the services that were saved
+     * @throws Exception - failed to commit
+     */
     @Override
-    public void deleteAll() {
-        super.deleteAll();
-        changed();
-    }
-
-    @Override
-    public RegisteredService save(final RegisteredService registeredService) {
-        val service = super.save(registeredService);
-        changed();
-        return service;
-    }
-
-    @Override
-    public RegisteredService save(final RegisteredService registeredService, final boolean b) {
-        val service = super.save(registeredService, b);
-        changed();
-        return service;
-    }
-
-    @Override
-    public RegisteredService delete(final long l) {
-        val service = super.delete(l);
-        changed();
-        return service;
+    public void commit(final CasUserProfile user, final String message, final Collection<RegisteredService> services) throws Exception {
+        val ids = services.stream().map(RegisteredService::getId).collect(Collectors.toSet());
+        val paths = services.stream()
+                .map(s -> getNamingStrategy().build(s, ".json"))
+                .collect(Collectors.toCollection(HashSet::new));
+        val status = git.status();
+        Stream.concat(status.getRemoved().stream(), status.getMissing().stream())
+                .filter(f -> ids.contains(IncrementalJsonServiceRegistry.serviceId(f)))
+                .forEach(paths::add);
+        git.commit(user, message, paths);
     }
 
+    /**
+     * Stops tracking changes to the repository and closes it.
+     */
     @Override
-    public RegisteredService delete(final RegisteredService registeredService) {
-        val service = super.delete(registeredService);
-        changed();
-        return service;
+    public void close() {
+        registry.destroy();
+        git.close();
     }
 }
@@ -1,33 +1,32 @@
 package org.apereo.cas.mgmt.controller;
 
-import org.apereo.cas.configuration.CasManagementConfigurationProperties;
 import org.apereo.cas.mgmt.GitUtil;
 import org.apereo.cas.mgmt.PendingRequests;
+import org.apereo.cas.mgmt.PublishJobs;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
 import org.apereo.cas.mgmt.domain.Commit;
 import org.apereo.cas.mgmt.domain.GitStatus;
-import org.apereo.cas.mgmt.exception.PublishFailureException;
-import org.apereo.cas.mgmt.exception.SyncScriptFailureException;
+import org.apereo.cas.mgmt.domain.PublishStatus;
 import org.apereo.cas.mgmt.exception.VersionControlException;
 import org.apereo.cas.mgmt.factory.RepositoryFactory;
 import org.apereo.cas.mgmt.util.CasManagementUtils;
-import org.apereo.cas.services.ServicesManager;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.lib.AbbreviatedObjectId;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -52,19 +51,16 @@ public class CommitController extends AbstractVersionControlController {
     private static final int NO_CHANGES_FOUND = 244;
 
     private final RepositoryFactory repositoryFactory;
-    private final CasManagementConfigurationProperties managementProperties;
-    private final ServicesManager servicesManager;
+    private final PublishJobs publishJobs;
     private final ObjectProvider<PendingRequests> pendingRequests;
 
     public CommitController(final RepositoryFactory repositoryFactory,
                             final CasUserProfileFactory casUserProfileFactory,
-                            final CasManagementConfigurationProperties managementProperties,
-                            final ServicesManager servicesManager,
+                            final PublishJobs publishJobs,
                             final ObjectProvider<PendingRequests> pendingRequests) {
         super(casUserProfileFactory);
         this.repositoryFactory =repositoryFactory;
-        this.managementProperties = managementProperties;
-        this.servicesManager = servicesManager;
+        this.publishJobs = publishJobs;
         this.pendingRequests = pendingRequests;
     }
 
@@ -94,81 +90,73 @@ public class CommitController extends AbstractVersionControlController {
     }
 
     /**
-     * Method will pull the services-repo to the published-repo and then execute the script to sync with all CAS nodes.
+     * Starts a background job that applies the net changes since the last publish to the services manager and then
+     * runs the sync script to sync with all CAS nodes. If a job is already running its status is returned instead.
      *
      * @param response - HttpServletResponse.
      * @param request  - HttpServletRequest.
-     * @throws PublishFailureException - failed
-     * @throws SyncScriptFailureException - failed
+     * @return - PublishStatus of the running job
      */
     @GetMapping(value = "/publish")
-    @ResponseStatus(HttpStatus.OK)
-    public void publish(final HttpServletResponse response, final HttpServletRequest request)
-            throws PublishFailureException, SyncScriptFailureException {
+    public PublishStatus publish(final HttpServletResponse response, final HttpServletRequest request) {
         isAdministrator(request, response);
-        try (GitUtil git = repositoryFactory.masterRepository()) {
-            git.getUnpublishedCommits().forEach(commit -> {
-                val diffs = publishDiffs(git, commit);
-                /** Run through deletes first in case of name change */
-                diffs.stream().filter(d -> d.getChangeType() == DiffEntry.ChangeType.DELETE)
-                        .forEach(c -> this.servicesManager.delete(CasManagementUtils.fromJson(getService(git, c.getOldId())).getId()));
-                diffs.stream().filter(d -> d.getChangeType() != DiffEntry.ChangeType.DELETE)
-                        .forEach(c -> this.servicesManager.save(CasManagementUtils.fromJson(getService(git, c.getNewId()))));
-            });
-            git.setPublished();
-        } catch (final Exception e) {
-            LOGGER.error(e.getMessage(), e);
-            throw new PublishFailureException();
-        }
-        runSyncScript();
-    }
-
-    @SneakyThrows
-    private String getService(final GitUtil git, final AbbreviatedObjectId id) {
-        return git.readObject(id.toObjectId());
+        return publishJobs.start(true);
     }
 
-    @SneakyThrows
-    private List<DiffEntry> publishDiffs(final GitUtil git, final Commit commit) {
-        return git.getPublishDiffs(commit.getId());
+    /**
+     * Returns the progress of a publish or sync job.
+     *
+     * @param response - HttpServletResponse.
+     * @param request  - HttpServletRequest.
+     * @param id       - id of the job
+     * @param from     - first line of sync script output to return
+     * @return - PublishStatus
+     */
+    @GetMapping("/publish/{id}")
+    public PublishStatus publishStatus(final HttpServletResponse response,
+                                       final HttpServletRequest request,
+                                       final @PathVariable String id,
+                                       final @RequestParam(defaultValue = "0") int from) {
+        isAdministrator(request, response);
+        val status = publishJobs.status(id, from);
+        if (status == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        }
+        return status;
     }
 
     /**
-     * Method to run sync script outside of publish.
+     * Cancels a publish or sync job.
      *
-     * @param request  - the request
-     * @param response - their resposne
-     * @throws SyncScriptFailureException - failed
+     * @param response - HttpServletResponse.
+     * @param request  - HttpServletRequest.
+     * @param id       - id of the job
+     * @return - PublishStatus
      */
-    @GetMapping("/sync")
-    @ResponseStatus(HttpStatus.OK)
-    public void sync(final HttpServletRequest request,
-                     final HttpServletResponse response) throws SyncScriptFailureException {
+    @DeleteMapping("/publish/{id}")
+    public PublishStatus cancelPublish(final HttpServletResponse response,
+                                       final HttpServletRequest request,
+                                       final @PathVariable String id) {
         isAdministrator(request, response);
-        runSyncScript();
+        val status = publishJobs.cancel(id);
+        if (status == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        }
+        return status;
     }
 
     /**
-     * If a syncScript is configured it will be executed.
+     * Method to run sync script outside of publish as a background job.
      *
-     * @throws SyncScriptFailureException - failed.
+     * @param request  - the request
+     * @param response - their resposne
+     * @return - PublishStatus of the running job
      */
-    private void runSyncScript() throws SyncScriptFailureException {
-        if (managementProperties.getVersionControl().getSyncScript() != null) {
-            try {
-                val status = Runtime.getRuntime().exec(managementProperties.getVersionControl().getSyncScript()).waitFor();
-                if (status > 0) {
-                    LOGGER.error("SyncScript returned value > 0");
-                    throw new SyncScriptFailureException();
-                }
-            } catch (final IOException e) {
-                LOGGER.error(e.getMessage(), e);
-                throw new SyncScriptFailureException();
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new SyncScriptFailureException();
-            }
-        }
+    @GetMapping("/sync")
+    public PublishStatus sync(final HttpServletRequest request,
+                              final HttpServletResponse response) {
+        isAdministrator(request, response);
+        return publishJobs.start(false);
     }
 
     /**
@@ -10,12 +10,17 @@ import org.apereo.cas.mgmt.exception.VersionControlException;
 import org.apereo.cas.mgmt.factory.RepositoryFactory;
 import org.apereo.cas.mgmt.util.CasManagementUtils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
+import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -30,6 +35,11 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
@@ -46,17 +56,21 @@ import static java.util.stream.Collectors.toList;
 public class HistoryController extends AbstractVersionControlController {
 
     private static final int MAX_COMMITS = 100;
+    private static final int MAX_PAGE_SIZE = 500;
     private static final int NO_CHANGES_FOUND = 244;
 
     private final RepositoryFactory repositoryFactory;
     private final MgmtManagerFactory managerFactory;
+    private final ObjectMapper objectMapper;
 
     public HistoryController(final RepositoryFactory repositoryFactory,
                              final MgmtManagerFactory managerFactory,
-                             final CasUserProfileFactory casUserProfileFactory) {
+                             final CasUserProfileFactory casUserProfileFactory,
+                             final ObjectMapper objectMapper) {
         super(casUserProfileFactory);
         this.repositoryFactory = repositoryFactory;
         this.managerFactory = managerFactory;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -73,7 +87,7 @@ public class HistoryController extends AbstractVersionControlController {
         isAdministrator(request, response);
         try (GitUtil git = repositoryFactory.masterRepository()) {
             return git.getLastNCommits(MAX_COMMITS)
-                    .filter(c -> !c.getFullMessage().equals("Created"))
+                    .filter(c -> !c.getFullMessage().equals(GitUtil.CREATED_MESSAGE))
                     .map(c -> new Commit(c.abbreviate(GitUtil.NAME_LENGTH).name(),
                             c.getFullMessage(),
                             CasManagementUtils.formatDateTime(c.getCommitTime()))
@@ -86,11 +100,84 @@ public class HistoryController extends AbstractVersionControlController {
     }
 
     /**
-     * Method will return a complete history of commits for a given file.
+     * Streams one page of the commits in the services repository, newest first, to the response. The response
+     * contains the commits and an opaque cursor that is passed back to read the next page. The cursor is null once the
+     * last page has been returned. The page is read before anything is written, so a malformed date or cursor answers
+     * 400 and a failed walk answers with an error instead of an empty last page.
+     *
+     * @param request  - HttpServletRequest
+     * @param response - HttpServletResponse
+     * @param cursor   - cursor returned with the previous page
+     * @param size     - number of commits per page
+     * @param author   - text the committer name or email must contain
+     * @param since    - ISO-8601 local date or date-time of the earliest commit
+     * @param until    - ISO-8601 local date or date-time the commits must be before
+     * @param path     - path of a file the commits must have changed
+     * @throws IOException - failed reading the repository or writing the response
+     */
+    @GetMapping("page")
+    public void historyPage(final HttpServletRequest request,
+                            final HttpServletResponse response,
+                            final @RequestParam(required = false) String cursor,
+                            final @RequestParam(defaultValue = "100") int size,
+                            final @RequestParam(required = false) String author,
+                            final @RequestParam(required = false) String since,
+                            final @RequestParam(required = false) String until,
+                            final @RequestParam(required = false) String path) throws IOException {
+        isAdministrator(request, response);
+        final Long sinceTime;
+        final Long untilTime;
+        try {
+            sinceTime = toEpochSecond(since);
+            untilTime = toEpochSecond(until);
+        } catch (final DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid date '" + e.getParsedString() + '\'');
+            return;
+        }
+        val commits = new ArrayList<RevCommit>();
+        final String next;
+        try (GitUtil git = repositoryFactory.masterRepository()) {
+            next = git.commits(cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), path, author, sinceTime, untilTime, commits::add);
+        } catch (final IllegalArgumentException | MissingObjectException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor '" + cursor + '\'');
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (val generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("commits");
+            for (val commit : commits) {
+                writeCommit(generator, commit);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("cursor", next);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeCommit(final JsonGenerator generator, final RevCommit c) throws IOException {
+        generator.writeObject(new Commit(c.abbreviate(GitUtil.NAME_LENGTH).name(),
+                c.getFullMessage(),
+                CasManagementUtils.formatDateTime(c.getCommitTime())));
+    }
+
+    private static Long toEpochSecond(final String time) {
+        if (StringUtils.isBlank(time)) {
+            return null;
+        }
+        val dateTime = time.contains("T") ? LocalDateTime.parse(time) : LocalDate.parse(time).atStartOfDay();
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Method will return the history of commits for a given file, newest first. The complete history is returned
+     * unless a page is requested with offset and limit.
      *
      * @param request  - HttpServletRequest
      * @param response - HttpServletResponse
      * @param path     - path of file
+     * @param offset   - number of commits to skip
+     * @param limit    - maximum number of commits to return
      * @return - List of History
      * @throws VersionControlException - failed
      */
@@ -98,11 +185,13 @@ public class HistoryController extends AbstractVersionControlController {
     @ResponseStatus(HttpStatus.OK)
     public List<History> history(final HttpServletRequest request,
                                  final HttpServletResponse response,
-                                 final @RequestBody String path) throws VersionControlException {
+                                 final @RequestBody String path,
+                                 final @RequestParam(defaultValue = "0") int offset,
+                                 final @RequestParam(defaultValue = "2147483647") int limit) throws VersionControlException {
         isUser(request, response);
         try (GitUtil git = repositoryFactory.from(request, response)) {
-            return git.history(path);
-        } catch (final GitAPIException ex) {
+            return git.history(path, offset, limit);
+        } catch (final IOException ex) {
             LOGGER.error(ex.getMessage(), ex);
             throw new VersionControlException();
         }
@@ -0,0 +1,69 @@
+package org.apereo.cas.mgmt.controller;
+
+import org.apereo.cas.mgmt.RepositoryMaintenance;
+import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
+import org.apereo.cas.mgmt.domain.ManagerPoolStatistics;
+import org.apereo.cas.mgmt.domain.RepositoryStatistics;
+import org.apereo.cas.mgmt.factory.VersionControlManagerFactory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Controller that reports the state of repository maintenance.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@RestController("maintenanceController")
+@RequestMapping(path = "api/maintenance", produces = MediaType.APPLICATION_JSON_VALUE)
+@Slf4j
+public class MaintenanceController extends AbstractVersionControlController {
+
+    private final RepositoryMaintenance repositoryMaintenance;
+
+    private final VersionControlManagerFactory managerFactory;
+
+    public MaintenanceController(final RepositoryMaintenance repositoryMaintenance,
+                                 final VersionControlManagerFactory managerFactory,
+                                 final CasUserProfileFactory casUserProfileFactory) {
+        super(casUserProfileFactory);
+        this.repositoryMaintenance = repositoryMaintenance;
+        this.managerFactory = managerFactory;
+    }
+
+    /**
+     * Returns the object counts and pack sizes of each repository with the outcome of its last maintenance run.
+     *
+     * @param request  - HttpServletRequest
+     * @param response - HttpServletResponse
+     * @return - List of RepositoryStatistics
+     */
+    @GetMapping
+    public List<RepositoryStatistics> statistics(final HttpServletRequest request,
+                                                 final HttpServletResponse response) {
+        isAdministrator(request, response);
+        return repositoryMaintenance.statistics();
+    }
+
+    /**
+     * Returns the size and hit, miss and eviction counts of the pool of delegated users' managers.
+     *
+     * @param request  - HttpServletRequest
+     * @param response - HttpServletResponse
+     * @return - ManagerPoolStatistics
+     */
+    @GetMapping("pool")
+    public ManagerPoolStatistics pool(final HttpServletRequest request,
+                                      final HttpServletResponse response) {
+        isAdministrator(request, response);
+        return managerFactory.getUserManagers().statistics();
+    }
+}
@@ -3,7 +3,6 @@ package org.apereo.cas.mgmt.controller;
 import org.apereo.cas.mgmt.GitUtil;
 import org.apereo.cas.mgmt.domain.Change;
 import org.apereo.cas.mgmt.domain.Diff;
-import org.apereo.cas.mgmt.util.CasManagementUtils;
 import org.apereo.cas.services.util.RegisteredServiceJsonSerializer;
 
 import lombok.SneakyThrows;
@@ -66,19 +65,16 @@ public class VersionControlUtil {
      */
     @SneakyThrows
     public static Change createDeleteChange(final GitUtil git, final DiffEntry entry) {
-        val json = git.readObject(entry.getOldId().toObjectId());
-        val svc = CasManagementUtils.fromJson(json);
+        val svc = git.serviceMetadata(entry.getOldId().toObjectId());
         return new Change(String.valueOf(svc.getId()),
                 entry.getOldPath(),
                 DiffEntry.ChangeType.DELETE.toString(),
                 svc.getName(),
                 ObjectId.toString(entry.getOldId().toObjectId()),
                 null,
-                CasManagementUtils.getType(svc));
+                svc.getType());
     }
 
-
-
     /**
      * Creates a change for a modified file.
      *
@@ -90,15 +86,14 @@ public class VersionControlUtil {
     @SneakyThrows
     public static Change createModifyChange(final GitUtil git, final DiffEntry entry) {
         val file = git.repoPath() + '/' + entry.getNewPath();
-        val json = new String(Files.readAllBytes(Paths.get(file)));
-        val svc = CasManagementUtils.fromJson(json);
+        val svc = git.serviceMetadata(entry.getNewId().toObjectId(), () -> new String(Files.readAllBytes(Paths.get(file))));
         return new Change(String.valueOf(svc.getId()),
                 entry.getNewPath(),
                 entry.getChangeType().toString(),
                 svc.getName(),
                 ObjectId.toString(entry.getOldId().toObjectId()),
                 ObjectId.toString(entry.getNewId().toObjectId()),
-                CasManagementUtils.getType(svc));
+                svc.getType());
     }
 
     /**
@@ -111,7 +106,7 @@ public class VersionControlUtil {
     public static Diff createDiff(final DiffEntry diff, final GitUtil git) {
         try {
             val id = diff.getChangeType() == DiffEntry.ChangeType.ADD ? diff.getNewId().toObjectId() : diff.getOldId().toObjectId();
-            val service = CasManagementUtils.fromJson(git.readObject(id));
+            val service = git.serviceMetadata(id);
             return new Diff(diff.getNewPath(),
                     diff.getOldId().toObjectId(),
                     diff.getNewId().toObjectId(),
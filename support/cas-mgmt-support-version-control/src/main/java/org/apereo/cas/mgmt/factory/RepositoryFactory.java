@@ -1,21 +1,41 @@
 package org.apereo.cas.mgmt.factory;
 
 import org.apereo.cas.configuration.CasManagementConfigurationProperties;
+import org.apereo.cas.mgmt.DiffCache;
 import org.apereo.cas.mgmt.GitUtil;
+import org.apereo.cas.mgmt.PathHistoryIndex;
+import org.apereo.cas.mgmt.ServiceChangeTracker;
+import org.apereo.cas.mgmt.ServiceMetadataCache;
+import org.apereo.cas.mgmt.StatusCache;
 import org.apereo.cas.mgmt.authentication.CasUserProfile;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
 
-import lombok.RequiredArgsConstructor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.CreateBranchCommand;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.transport.TagOpt;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Factory class to create repository objects.
@@ -23,17 +43,98 @@ import java.nio.file.Paths;
  * @author Travis Schmidt
  * @since 5.2.0
  */
-@RequiredArgsConstructor
 @Slf4j
 public class RepositoryFactory {
 
     private static final String REPO_DIR = "/.git";
-    private static final String REPO_VAR = "userRepo";
+
+    private static final AtomicBoolean PACK_CACHE_INSTALLED = new AtomicBoolean();
 
     private final CasManagementConfigurationProperties casProperties;
     private final CasUserProfileFactory casUserProfileFactory;
     private GitUtil masterRepository;
 
+    /**
+     * Watches the working trees of the repositories for changed files.
+     */
+    @Getter
+    private final ServiceChangeTracker changeTracker = new ServiceChangeTracker();
+
+    /**
+     * Status caches of the delegated users' repositories keyed by working tree, dropped when a user is idle.
+     */
+    private final Cache<String, StatusCache> statusCaches;
+
+    /**
+     * Path history indexes of the delegated users' repositories keyed by working tree, dropped when a user is idle.
+     */
+    private final Cache<String, PathHistoryIndex> pathHistories;
+
+    /**
+     * Formatted diffs between blobs, shared by every repository.
+     */
+    @Getter
+    private final DiffCache diffCache;
+
+    /**
+     * Service metadata by blob, shared by every repository.
+     */
+    @Getter
+    private final ServiceMetadataCache metadataCache;
+
+    public RepositoryFactory(final CasManagementConfigurationProperties casProperties,
+                             final CasUserProfileFactory casUserProfileFactory) {
+        this.casProperties = casProperties;
+        this.casUserProfileFactory = casUserProfileFactory;
+        this.statusCaches = CacheBuilder.newBuilder()
+                .maximumSize(casProperties.getDelegated().getManagerPoolSize())
+                .expireAfterAccess(Duration.parse(casProperties.getDelegated().getManagerIdleTimeout()).toMillis(), TimeUnit.MILLISECONDS)
+                .removalListener((RemovalNotification<String, StatusCache> n) -> n.getValue().close())
+                .build();
+        this.pathHistories = CacheBuilder.newBuilder()
+                .maximumSize(casProperties.getDelegated().getManagerPoolSize())
+                .expireAfterAccess(Duration.parse(casProperties.getDelegated().getManagerIdleTimeout()).toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.diffCache = new DiffCache(casProperties.getVersionControl().getDiffCacheSize());
+        this.metadataCache = new ServiceMetadataCache(casProperties.getVersionControl().getMetadataCacheSize());
+        installPackCache(casProperties.getVersionControl().getPackCache());
+    }
+
+    /**
+     * Closes the master repository and stops watching the working trees.
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        if (masterRepository != null) {
+            masterRepository.release();
+            masterRepository = null;
+        }
+        statusCaches.invalidateAll();
+        changeTracker.close();
+    }
+
+    /**
+     * Applies the pack cache settings to the JGit window cache. The cache is global to the JVM, so the settings of
+     * the first factory created are installed and later factories leave them in place.
+     *
+     * @param packCache - the pack cache settings
+     */
+    private static void installPackCache(final CasManagementConfigurationProperties.PackCache packCache) {
+        if (!PACK_CACHE_INSTALLED.compareAndSet(false, true)) {
+            LOGGER.debug("Pack cache already installed, keeping its settings");
+            return;
+        }
+        val config = new WindowCacheConfig();
+        config.setPackedGitLimit(packCache.getPackedGitLimit());
+        config.setPackedGitWindowSize(packCache.getPackedGitWindowSize());
+        config.setDeltaBaseCacheLimit(packCache.getDeltaBaseCacheLimit());
+        config.setPackedGitOpenFiles(packCache.getPackedGitOpenFiles());
+        config.setPackedGitMMAP(packCache.isPackedGitMmap());
+        config.install();
+        LOGGER.debug("Installed pack cache with limit [{}], window size [{}] and mmap [{}]",
+            packCache.getPackedGitLimit(), packCache.getPackedGitWindowSize(), packCache.isPackedGitMmap());
+    }
+
     /**
      * Method looks up user from servlet request to return correct repository.
      *
@@ -42,26 +143,19 @@ public class RepositoryFactory {
      * @return - GitUtil wrapping the user's repository
      */
     public GitUtil from(final HttpServletRequest request, final HttpServletResponse response) {
-        return from(casUserProfileFactory.from(request, response), request);
+        return from(casUserProfileFactory.from(request, response));
     }
 
     @SneakyThrows
-    private GitUtil from(final CasUserProfile user, final HttpServletRequest request) {
+    private GitUtil from(final CasUserProfile user) {
         if (!user.isUser() || user.isAdministrator()) {
             return masterRepository();
         }
-        if (request.getSession().getAttribute(REPO_VAR) != null) {
-            val userRepo = (GitUtil) request.getSession().getAttribute(REPO_VAR);
-            userRepo.rebase();
-            return userRepo;
-        }
         val path = Paths.get(casProperties.getDelegated().getUserReposDir() + '/' + user.getId());
         if (!Files.exists(path)) {
             clone(path.toString());
         }
-        val userRepo = userRepository(user.getId());
-        request.setAttribute(REPO_VAR, userRepo);
-        return userRepo;
+        return userRepository(user.getId());
     }
 
     /**
@@ -70,31 +164,52 @@ public class RepositoryFactory {
      * @return - GitUtil
      */
     @SneakyThrows
-    public GitUtil masterRepository() {
+    public synchronized GitUtil masterRepository() {
         if (masterRepository == null) {
-            this.masterRepository = buildGitUtil(casProperties.getVersionControl().getServicesRepo());
+            val path = casProperties.getVersionControl().getServicesRepo();
+            this.masterRepository = buildGitUtil(path);
+            masterRepository.setShared(true);
+            masterRepository.setStatusCache(new StatusCache(changeTracker.watch(Paths.get(path))));
+            masterRepository.setPathHistory(new PathHistoryIndex(new File(path + REPO_DIR)));
         }
         return masterRepository;
     }
 
     @SneakyThrows
     private GitUtil userRepository(final String user) {
-        return buildGitUtil(casProperties.getDelegated().getUserReposDir() + '/' + user);
+        val path = casProperties.getDelegated().getUserReposDir() + '/' + user;
+        val git = buildGitUtil(path);
+        git.setStatusCache(statusCaches.get(path, () -> new StatusCache(changeTracker.watch(Paths.get(path)))));
+        git.setPathHistory(pathHistories.get(path, () -> new PathHistoryIndex(new File(path + REPO_DIR))));
+        return git;
     }
 
     @SneakyThrows
-    private static GitUtil buildGitUtil(final String path) {
-        return new GitUtil(path + REPO_DIR);
+    private GitUtil buildGitUtil(final String path) {
+        val git = new GitUtil(path + REPO_DIR);
+        git.setDiffCache(diffCache);
+        git.setMetadataCache(metadataCache);
+        return git;
     }
 
     /**
-     * Clones the master repository into the passed in directory.
+     * Clones the master repository into the passed in directory. When shared objects are enabled the clone borrows
+     * the objects of the master repository through git alternates, so cloning takes about the same time and disk
+     * however long the history is.
      *
      * @param clone - String representing dir to create the clone
      * @return - GitUtil
      */
     public GitUtil clone(final String clone) {
         val uri = casProperties.getVersionControl().getServicesRepo() + REPO_DIR;
+        if (casProperties.getDelegated().isSharedObjects()) {
+            try {
+                return sharedClone(uri, clone);
+            } catch (final Exception e) {
+                LOGGER.warn("Shared clone of [{}] to [{}] failed, falling back to a full clone: [{}]", uri, clone, e.getMessage());
+                FileUtils.deleteQuietly(new File(clone));
+            }
+        }
         LOGGER.debug("Cloning repository [{}] to path [{}]", uri, clone);
         try (val git = Git.cloneRepository().setURI(uri).setDirectory(new File(clone)).call()) {
             return new GitUtil(git);
@@ -103,4 +218,43 @@ public class RepositoryFactory {
             return null;
         }
     }
+
+    /**
+     * Creates a repository whose objects/info/alternates points at the master object database, then fetches and
+     * checks out the master branch. Every object the fetch asks for is already present through the alternates, so
+     * nothing is copied.
+     *
+     * <p>
+     * Tags are not fetched, so the clone never references the published tag, which is recreated on every publish.
+     * Its branches can still reference objects that become unreachable in master, so
+     * {@link org.apereo.cas.mgmt.RepositoryMaintenance} does not prune master while shared clones exist, and only
+     * packs the clones' own loose objects.
+     */
+    private static GitUtil sharedClone(final String uri, final String clone) throws Exception {
+        LOGGER.debug("Cloning repository [{}] to path [{}] with shared objects", uri, clone);
+        val master = new File(uri);
+        final String branch;
+        try (val repository = new FileRepositoryBuilder().setGitDir(master).setMustExist(true).build()) {
+            branch = repository.getBranch();
+        }
+        try (val git = Git.init().setDirectory(new File(clone)).call()) {
+            val gitDir = git.getRepository().getDirectory();
+            val alternates = new File(gitDir, "objects/info/alternates");
+            FileUtils.forceMkdirParent(alternates);
+            FileUtils.writeStringToFile(alternates, new File(master, "objects").getAbsolutePath() + '\n', StandardCharsets.UTF_8);
+            val config = git.getRepository().getConfig();
+            config.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "url", master.getAbsolutePath());
+            config.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "fetch",
+                    "+" + Constants.R_HEADS + "*:" + Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/*");
+            config.save();
+            git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).setTagOpt(TagOpt.NO_TAGS).call();
+            git.checkout()
+                    .setCreateBranch(true)
+                    .setName(branch)
+                    .setStartPoint(Constants.DEFAULT_REMOTE_NAME + '/' + branch)
+                    .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK)
+                    .call();
+            return new GitUtil(git);
+        }
+    }
 }
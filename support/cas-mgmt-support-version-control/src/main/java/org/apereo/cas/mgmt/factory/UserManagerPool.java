@@ -0,0 +1,194 @@
+package org.apereo.cas.mgmt.factory;
+
+import org.apereo.cas.mgmt.VersionControlServicesManager;
+import org.apereo.cas.mgmt.domain.ManagerPoolStatistics;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of delegated users' services managers keyed by user id. Managers are evicted least recently used
+ * first when the pool is full and after they have been idle for the configured time. An evicted user's manager is
+ * rebuilt from their clone on their next request.
+ *
+ * <p>
+ * Requests take a {@link Lease} on the manager they use. A manager evicted while leased is closed when its last lease
+ * is released, so eviction never closes the repository or watch of a manager that a request is still using.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+public class UserManagerPool {
+
+    private final Cache<String, PooledManager> managers;
+
+    private final int maximumSize;
+
+    private final AtomicInteger leased = new AtomicInteger();
+
+    public UserManagerPool(final int maximumSize, final Duration idleTimeout) {
+        this.maximumSize = maximumSize;
+        this.managers = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .removalListener(this::evicted)
+                .build();
+    }
+
+    /**
+     * Leases the manager for the user, creating it if the user has no manager in the pool. The lease must be closed
+     * when the caller is done with the manager.
+     *
+     * @param userId - the user id
+     * @param loader - creates the manager on a miss
+     * @return - the lease
+     */
+    @SneakyThrows
+    public Lease acquire(final String userId, final Callable<VersionControlServicesManager> loader) {
+        while (true) {
+            final PooledManager pooled;
+            try {
+                pooled = managers.get(userId, () -> new PooledManager(userId, loader.call()));
+            } catch (final ExecutionException | UncheckedExecutionException e) {
+                throw e.getCause();
+            }
+            if (pooled.lease()) {
+                leased.incrementAndGet();
+                return new Lease(pooled);
+            }
+            LOGGER.trace("Manager for [{}] was evicted before it could be leased, retrying", userId);
+        }
+    }
+
+    /**
+     * Removes the user's manager. It is closed now if it is idle, otherwise when its last lease is released.
+     *
+     * @param userId - the user id
+     */
+    public void invalidate(final String userId) {
+        managers.invalidate(userId);
+    }
+
+    /**
+     * Removes every manager. Idle managers are closed now, leased ones when their last lease is released.
+     */
+    public void invalidateAll() {
+        managers.invalidateAll();
+    }
+
+    /**
+     * Returns the size, lease count and hit, miss, load and eviction counts of the pool.
+     *
+     * @return - the statistics
+     */
+    public ManagerPoolStatistics statistics() {
+        val stats = managers.stats();
+        val statistics = new ManagerPoolStatistics();
+        statistics.setSize(managers.size());
+        statistics.setMaximumSize(maximumSize);
+        statistics.setLeased(leased.get());
+        statistics.setHitCount(stats.hitCount());
+        statistics.setMissCount(stats.missCount());
+        statistics.setHitRate(stats.hitRate());
+        statistics.setLoadCount(stats.loadCount());
+        statistics.setLoadFailureCount(stats.loadExceptionCount());
+        statistics.setAverageLoadMillis(TimeUnit.NANOSECONDS.toMillis((long) stats.averageLoadPenalty()));
+        statistics.setEvictionCount(stats.evictionCount());
+        return statistics;
+    }
+
+    /**
+     * Returns the number of managers in the pool.
+     *
+     * @return - the size
+     */
+    public long size() {
+        return managers.size();
+    }
+
+    private void evicted(final RemovalNotification<String, PooledManager> notification) {
+        LOGGER.debug("Services manager for [{}] removed from pool because [{}]. Pool size [{}]",
+                notification.getKey(), notification.getCause(), managers.size());
+        val pooled = notification.getValue();
+        if (pooled != null) {
+            pooled.retire();
+        }
+    }
+
+    /**
+     * Manager in the pool with the number of leases held on it.
+     */
+    @RequiredArgsConstructor
+    private static class PooledManager {
+        private final String userId;
+        private final VersionControlServicesManager manager;
+        private int leases;
+        private boolean retired;
+
+        synchronized boolean lease() {
+            if (retired) {
+                return false;
+            }
+            leases++;
+            return true;
+        }
+
+        synchronized void release() {
+            leases--;
+            closeIfUnused();
+        }
+
+        synchronized void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (retired && leases == 0) {
+                LOGGER.debug("Closing services manager for [{}]", userId);
+                manager.close();
+            }
+        }
+    }
+
+    /**
+     * A request's hold on a pooled manager. Closing the lease more than once has no further effect.
+     */
+    public class Lease implements AutoCloseable {
+        private final PooledManager pooled;
+
+        @Getter
+        private final VersionControlServicesManager manager;
+
+        private boolean closed;
+
+        Lease(final PooledManager pooled) {
+            this.pooled = pooled;
+            this.manager = pooled.manager;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                leased.decrementAndGet();
+                pooled.release();
+            }
+        }
+    }
+}
@@ -4,18 +4,20 @@ import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.CasManagementConfigurationProperties;
 import org.apereo.cas.configuration.model.core.services.ServiceRegistryProperties;
 import org.apereo.cas.mgmt.GitUtil;
+import org.apereo.cas.mgmt.IncrementalJsonServiceRegistry;
 import org.apereo.cas.mgmt.ManagementServicesManager;
 import org.apereo.cas.mgmt.MgmtManagerFactory;
+import org.apereo.cas.mgmt.ServiceRegistrySnapshot;
 import org.apereo.cas.mgmt.VersionControlServicesManager;
 import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
 import org.apereo.cas.services.ChainingServicesManager;
 import org.apereo.cas.services.DefaultServicesManager;
-import org.apereo.cas.services.JsonServiceRegistry;
+import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.ServiceRegistry;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.services.domain.DefaultDomainAwareServicesManager;
 import org.apereo.cas.services.domain.DefaultRegisteredServiceDomainExtractor;
 import org.apereo.cas.services.resource.RegisteredServiceResourceNamingStrategy;
-import org.apereo.cas.util.io.WatcherService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -23,15 +25,21 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import org.eclipse.jgit.api.Git;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Factory class to create ServiceManagers for the logged in user.
@@ -43,7 +51,7 @@ import java.util.HashSet;
 @Slf4j
 public class VersionControlManagerFactory implements MgmtManagerFactory<ManagementServicesManager> {
 
-    private static final String SERVICES_MANAGER_KEY = "servicesManager";
+    private static final String LEASE_ATTRIBUTE = VersionControlManagerFactory.class.getName() + ".lease.";
 
     private final ServicesManager servicesManager;
     private final CasManagementConfigurationProperties managementProperties;
@@ -51,23 +59,27 @@ public class VersionControlManagerFactory implements MgmtManagerFactory<Manageme
     private final CasUserProfileFactory casUserProfileFactory;
     private final CasConfigurationProperties casProperties;
     private final RegisteredServiceResourceNamingStrategy namingStrategy;
+    private final AtomicLong leases = new AtomicLong();
+    private UserManagerPool userManagers;
     private VersionControlServicesManager master;
+    private ServiceRegistrySnapshot snapshot;
 
     /**
      * Init repository.
      */
     @PostConstruct
     public void initRepository() {
+        val delegated = managementProperties.getDelegated();
+        this.userManagers = new UserManagerPool(delegated.getManagerPoolSize(), Duration.parse(delegated.getManagerIdleTimeout()));
         val servicesRepo = Paths.get(managementProperties.getVersionControl().getServicesRepo());
         if (!Files.exists(servicesRepo)) {
             try {
-                Git.init().setDirectory(servicesRepo.toFile()).call().commit().setMessage("Created").call();
+                Git.init().setDirectory(servicesRepo.toFile()).call().commit().setMessage(GitUtil.CREATED_MESSAGE).call();
             } catch (final Exception e) {
                 return;
             }
-            try (GitUtil git = repositoryFactory.masterRepository()) {
+            try (GitUtil git = repositoryFactory.masterRepository(); val manager = createManager(git)) {
                 servicesManager.load();
-                val manager = new VersionControlServicesManager(createJSONServiceManager(git), namingStrategy, git);
                 manager.loadFrom(servicesManager);
                 git.addWorkingChanges();
                 git.commit("Initial commit");
@@ -77,7 +89,27 @@ public class VersionControlManagerFactory implements MgmtManagerFactory<Manageme
             }
         }
         val git = repositoryFactory.masterRepository();
-        this.master = new VersionControlServicesManager(createJSONServiceManager(git), namingStrategy, git);
+        this.master = createManager(git);
+    }
+
+    /**
+     * Closes the pooled managers and the master manager.
+     */
+    @PreDestroy
+    public void destroy() {
+        userManagers.invalidateAll();
+        if (master != null) {
+            master.close();
+        }
+    }
+
+    /**
+     * Returns the pool of delegated users' managers.
+     *
+     * @return - the pool
+     */
+    public UserManagerPool getUserManagers() {
+        return userManagers;
     }
 
     /**
@@ -93,36 +125,42 @@ public class VersionControlManagerFactory implements MgmtManagerFactory<Manageme
     }
 
     /**
-     * Creates a manager for the passed Git repo.
+     * Creates a manager for the passed Git repo. The manager tracks changes to the repo's working tree until it is
+     * closed, and closing it also closes the repo, so callers open it with try-with-resources.
      *
      * @param git - the repo
      * @return - manager
      */
-    public ManagementServicesManager from(final GitUtil git) {
-        return new VersionControlServicesManager(createJSONServiceManager(git), namingStrategy, git);
+    public VersionControlServicesManager from(final GitUtil git) {
+        return createManager(git);
     }
 
 
+    /**
+     * Leases the user's pooled manager for the rest of the request, so the pool does not close it while the request
+     * is using it.
+     */
     private ManagementServicesManager getManagementServicesManager(final HttpServletRequest request, final HttpServletResponse response) {
         val user = casUserProfileFactory.from(request, response);
         if (!user.isUser() || user.isAdministrator()) {
             return master();
         }
-        val session = request.getSession();
-        val manager = session.getAttribute(SERVICES_MANAGER_KEY) != null ? getSessionManager(session) : createNewManager(request, response);
-        session.setAttribute(SERVICES_MANAGER_KEY, manager);
-        return manager;
-    }
-
-    private ManagementServicesManager getSessionManager(final HttpSession session) {
-        val manager = (VersionControlServicesManager) session.getAttribute(SERVICES_MANAGER_KEY);
+        val lease = userManagers.acquire(user.getId(), () -> createNewManager(request, response));
+        val attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.registerDestructionCallback(LEASE_ATTRIBUTE + leases.incrementAndGet(), lease::close, RequestAttributes.SCOPE_REQUEST);
+        } else {
+            LOGGER.debug("No request scope to hold the lease on [{}]'s manager, releasing it now", user.getId());
+            lease.close();
+        }
+        val manager = lease.getManager();
         manager.load();
         return manager;
     }
 
-    private ManagementServicesManager createNewManager(final HttpServletRequest request, final HttpServletResponse response) {
+    private VersionControlServicesManager createNewManager(final HttpServletRequest request, final HttpServletResponse response) {
         val git = repositoryFactory.from(request, response);
-        return new VersionControlServicesManager(createJSONServiceManager(git), namingStrategy, git);
+        return createManager(git, () -> sharedServices(git));
     }
 
     /**
@@ -135,12 +173,45 @@ public class VersionControlManagerFactory implements MgmtManagerFactory<Manageme
         return master;
     }
 
+    private VersionControlServicesManager createManager(final GitUtil git) {
+        return createManager(git, Map::of);
+    }
+
     @SneakyThrows
-    private ServicesManager createJSONServiceManager(final GitUtil git) {
+    private VersionControlServicesManager createManager(final GitUtil git, final Supplier<Map<String, RegisteredService>> shared) {
         val path = Paths.get(git.repoPath());
+        val serviceRegistryDAO = new IncrementalJsonServiceRegistry(path, namingStrategy, repositoryFactory.getChangeTracker().watch(path), shared);
+        return new VersionControlServicesManager(createJSONServiceManager(serviceRegistryDAO), namingStrategy, git, serviceRegistryDAO);
+    }
+
+    /**
+     * Returns the services from the master snapshot for each file in the user's working tree that is identical to a
+     * blob in master, keyed by file name.
+     */
+    private Map<String, RegisteredService> sharedServices(final GitUtil git) {
+        try {
+            val snapshot = snapshot();
+            val shared = new HashMap<String, RegisteredService>();
+            git.cleanBlobs().forEach((file, blob) -> {
+                val service = snapshot.get(blob);
+                if (service != null) {
+                    shared.put(file, service);
+                }
+            });
+            return shared;
+        } catch (final Exception e) {
+            LOGGER.warn("Unable to share master services with [{}], reading all files: [{}]", git.repoPath(), e.getMessage());
+            LOGGER.debug(e.getMessage(), e);
+            return Map.of();
+        }
+    }
+
+    private synchronized ServiceRegistrySnapshot snapshot() throws Exception {
+        this.snapshot = ServiceRegistrySnapshot.read(repositoryFactory.masterRepository(), this.snapshot);
+        return this.snapshot;
+    }
 
-        val serviceRegistryDAO = new JsonServiceRegistry(new FileSystemResource(path),
-            WatcherService.noOp(), null, null, namingStrategy, null);
+    private ServicesManager createJSONServiceManager(final ServiceRegistry serviceRegistryDAO) {
         val casManager = (ServicesManager) (casProperties.getServiceRegistry().getManagementType() == ServiceRegistryProperties.ServiceManagementTypes.DOMAIN
                 ? new DefaultDomainAwareServicesManager(serviceRegistryDAO, null, new DefaultRegisteredServiceDomainExtractor(), new HashSet<>())
                 : new DefaultServicesManager(serviceRegistryDAO, null, new HashSet<>()));
@@ -0,0 +1,111 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.mgmt.authentication.CasUserProfile;
+
+import lombok.val;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for GitUtil.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class GitUtilTests {
+
+    @TempDir
+    Path repo;
+
+    private GitUtil git;
+
+    private CasUserProfile user;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        Git.init().setDirectory(repo.toFile()).call().close();
+        git = new GitUtil(repo.resolve(".git").toString());
+        user = new CasUserProfile();
+        user.setId("casuser");
+        write("Initial-1.json", "{}");
+        git.addWorkingChanges();
+        git.commit(user, "Initial commit");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        git.close();
+    }
+
+    @Test
+    public void commitOnlyRecordsPassedPaths() throws Exception {
+        write("Saved-2.json", "{ \"id\": 2 }");
+        write("Other-3.json", "{ \"id\": 3 }");
+        write("Initial-1.json", "{ \"changed\": true }");
+
+        val commit = git.commit(user, "Bulk save", List.of("Saved-2.json"));
+
+        assertNotNull(commit);
+        assertEquals(Set.of("Saved-2.json", "Initial-1.json"), git.treeBlobs(commit.getName()).keySet());
+        val status = git.status();
+        assertEquals(Set.of("Other-3.json"), status.getUntracked());
+        assertEquals(Set.of("Initial-1.json"), status.getModified());
+    }
+
+    @Test
+    public void commitRecordsRenames() throws Exception {
+        git.move("Initial-1.json", "Renamed-1.json");
+
+        val commit = git.commit(user, "Rename", List.of("Renamed-1.json", "Initial-1.json"));
+
+        assertEquals(Set.of("Renamed-1.json"), git.treeBlobs(commit.getName()).keySet());
+        assertTrue(git.status().isClean());
+    }
+
+    @Test
+    public void commitWithoutChangesReturnsNull() throws Exception {
+        assertNull(git.commit(user, "Nothing", List.of("Initial-1.json")));
+    }
+
+    @Test
+    public void commitsSkipCreatedCommit() throws Exception {
+        Git.wrap(git.getRepository()).commit().setAllowEmpty(true).setMessage(GitUtil.CREATED_MESSAGE).call();
+        val messages = new ArrayList<String>();
+
+        val cursor = git.commits(null, 1, null, null, null, null, c -> messages.add(c.getFullMessage()));
+
+        assertEquals(List.of("Initial commit"), messages);
+        assertNull(cursor);
+    }
+
+    @Test
+    public void commitsPageWithCursor() throws Exception {
+        write("Saved-2.json", "{ \"id\": 2 }");
+        git.commit(user, "Second", List.of("Saved-2.json"));
+        write("Saved-3.json", "{ \"id\": 3 }");
+        git.commit(user, "Third", List.of("Saved-3.json"));
+        val messages = new ArrayList<String>();
+
+        val cursor = git.commits(null, 2, null, null, null, null, c -> messages.add(c.getFullMessage()));
+        assertNotNull(cursor);
+        assertNull(git.commits(cursor, 2, null, null, null, null, c -> messages.add(c.getFullMessage())));
+
+        assertEquals(List.of("Third", "Second", "Initial commit"), messages);
+    }
+
+    private void write(final String name, final String content) throws Exception {
+        Files.write(repo.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
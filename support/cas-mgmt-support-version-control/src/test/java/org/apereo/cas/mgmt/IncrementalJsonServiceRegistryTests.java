@@ -0,0 +1,122 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.services.RegexRegisteredService;
+import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.resource.DefaultRegisteredServiceResourceNamingStrategy;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for IncrementalJsonServiceRegistry.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class IncrementalJsonServiceRegistryTests {
+
+    private static final long WAIT_MILLIS = 10_000;
+
+    @TempDir
+    Path dir;
+
+    private ServiceChangeTracker tracker;
+
+    private IncrementalJsonServiceRegistry registry;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        tracker = new ServiceChangeTracker();
+        registry = new IncrementalJsonServiceRegistry(dir, new DefaultRegisteredServiceResourceNamingStrategy(), tracker.watch(dir));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        registry.destroy();
+        tracker.close();
+    }
+
+    @Test
+    public void serviceIdIsParsedFromFileNames() {
+        assertEquals(123L, IncrementalJsonServiceRegistry.serviceId("Name-123.json"));
+        assertEquals(5L, IncrementalJsonServiceRegistry.serviceId("services/Some-Name-5.json"));
+        assertNull(IncrementalJsonServiceRegistry.serviceId("Name-abc.json"));
+        assertNull(IncrementalJsonServiceRegistry.serviceId("Name-1.json.tmp"));
+        assertNull(IncrementalJsonServiceRegistry.serviceId("README.md"));
+    }
+
+    @Test
+    public void firstLoadReadsTheDirectory() {
+        registry.save(service(1, "One"));
+        registry.save(service(2, "Two"));
+        assertEquals(2, registry.load().size());
+        assertTrue(registry.isLastLoadFull());
+    }
+
+    @Test
+    public void changedFileIsReread() throws Exception {
+        registry.save(service(1, "One"));
+        registry.load();
+
+        Files.writeString(dir.resolve("One-1.json"), Files.readString(dir.resolve("One-1.json")).replace("https://one", "https://changed"));
+        awaitChanges();
+        val services = registry.load();
+
+        assertFalse(registry.isLastLoadFull());
+        assertEquals(1, registry.getLastUpdated().size());
+        assertEquals("https://changed.example.org/.*", services.iterator().next().getServiceId());
+    }
+
+    @Test
+    public void renamedFileKeepsTheService() throws Exception {
+        registry.save(service(1, "One"));
+        registry.load();
+
+        Files.move(dir.resolve("One-1.json"), dir.resolve("Renamed-1.json"));
+        awaitChanges();
+        val services = registry.load();
+
+        assertFalse(registry.isLastLoadFull());
+        assertEquals(1, services.size());
+        assertTrue(registry.getLastRemoved().isEmpty());
+    }
+
+    @Test
+    public void deletedFileRemovesTheService() throws Exception {
+        registry.save(service(1, "One"));
+        registry.save(service(2, "Two"));
+        registry.load();
+
+        Files.delete(dir.resolve("Two-2.json"));
+        awaitChanges();
+        val services = registry.load();
+
+        assertEquals(1, services.size());
+        assertEquals(1L, services.iterator().next().getId());
+        assertTrue(registry.getLastRemoved().contains(2L));
+    }
+
+    private void awaitChanges() throws InterruptedException {
+        val deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!registry.isModified() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(200);
+    }
+
+    private static RegisteredService service(final long id, final String name) {
+        val service = new RegexRegisteredService();
+        service.setId(id);
+        service.setName(name);
+        service.setServiceId("https://" + name.toLowerCase() + ".example.org/.*");
+        return service;
+    }
+}
@@ -0,0 +1,106 @@
+package org.apereo.cas.mgmt;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares reading every service blob of a packed repository with a new object reader per read, as GitUtil did before
+ * it pooled readers, against reading them through {@link GitUtil#readObject(ObjectId)}. Run with
+ * {@code -Dbenchmark=true}; the timings are logged.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ObjectReadBenchmarkTests {
+
+    private static final int SERVICES = 500;
+
+    private static final int REVISIONS = 4;
+
+    private static final int WARMUP = 3;
+
+    private static final int ROUNDS = 10;
+
+    @TempDir
+    Path repo;
+
+    @Test
+    public void compareBlobReads() throws Exception {
+        val blobs = new ArrayList<ObjectId>();
+        try (val git = Git.init().setDirectory(repo.toFile()).call()) {
+            for (var revision = 0; revision < REVISIONS; revision++) {
+                for (var id = 0; id < SERVICES; id++) {
+                    Files.write(repo.resolve("Service-" + id + ".json"), service(id, revision).getBytes(StandardCharsets.UTF_8));
+                }
+                git.add().addFilepattern(".").call();
+                git.commit().setMessage("Revision " + revision).call();
+            }
+            git.gc().call();
+            try (val walk = new TreeWalk(git.getRepository())) {
+                walk.addTree(git.getRepository().parseCommit(git.getRepository().resolve("HEAD")).getTree());
+                walk.setRecursive(true);
+                while (walk.next()) {
+                    blobs.add(walk.getObjectId(0));
+                }
+            }
+        }
+        try (val gitUtil = new GitUtil(repo.resolve(".git").toString())) {
+            val repository = gitUtil.getRepository();
+            val perRead = time(() -> {
+                for (val blob : blobs) {
+                    try (val reader = repository.newObjectReader()) {
+                        assertTrue(reader.open(blob).getBytes().length > 0);
+                    }
+                }
+            });
+            val pooled = time(() -> {
+                for (val blob : blobs) {
+                    assertFalse(gitUtil.readObject(blob).isEmpty());
+                }
+            });
+            LOGGER.info("Read [{}] blobs [{}] times: new reader per read [{}] ms, pooled readers [{}] ms",
+                    blobs.size(), ROUNDS, perRead, pooled);
+        }
+    }
+
+    private static long time(final Reads reads) throws Exception {
+        for (var i = 0; i < WARMUP; i++) {
+            reads.run();
+        }
+        val start = System.nanoTime();
+        for (var i = 0; i < ROUNDS; i++) {
+            reads.run();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static String service(final int id, final int revision) {
+        return "{\n  \"@class\" : \"org.apereo.cas.services.RegexRegisteredService\",\n"
+                + "  \"serviceId\" : \"^https://app" + id + ".example.org/.*\",\n"
+                + "  \"name\" : \"Service " + id + "\",\n"
+                + "  \"id\" : " + id + ",\n"
+                + "  \"description\" : \"Revision " + revision + " of service " + id + "\",\n"
+                + "  \"evaluationOrder\" : " + id + "\n}\n";
+    }
+
+    @FunctionalInterface
+    private interface Reads {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,132 @@
+package org.apereo.cas.mgmt;
+
+import lombok.val;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for PathHistoryIndex.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class PathHistoryIndexTests {
+
+    @TempDir
+    Path repo;
+
+    private Git git;
+
+    private File gitDir;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        git = Git.init().setDirectory(repo.toFile()).call();
+        gitDir = git.getRepository().getDirectory();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        git.close();
+    }
+
+    @Test
+    public void entriesAreNewestFirst() throws Exception {
+        val first = commit("Service-1.json", "{ \"id\": 1 }");
+        commit("Other-2.json", "{ \"id\": 2 }");
+        val third = commit("Service-1.json", "{ \"id\": 1, \"name\": \"changed\" }");
+
+        val entries = new PathHistoryIndex(gitDir).entries(git.getRepository(), "Service-1.json");
+
+        assertEquals(List.of(third.getId(), first.getId()), commits(entries));
+        assertEquals(blob(third, "Service-1.json"), entries.get(0).getBlob());
+    }
+
+    @Test
+    public void indexReloadsSegmentsWrittenByAnotherInstance() throws Exception {
+        val first = commit("Service-1.json", "{ \"id\": 1 }");
+        val writer = new PathHistoryIndex(gitDir);
+        val reader = new PathHistoryIndex(gitDir);
+        writer.update(git.getRepository());
+        reader.update(git.getRepository());
+
+        val second = commit("Service-1.json", "{ \"id\": 1, \"name\": \"changed\" }");
+        writer.update(git.getRepository());
+        reader.update(git.getRepository());
+
+        assertEquals(2, tipLines());
+        assertEquals(List.of(second.getId(), first.getId()),
+                commits(new PathHistoryIndex(gitDir).entries(git.getRepository(), "Service-1.json")));
+        assertEquals(List.of(second.getId(), first.getId()), commits(reader.entries(git.getRepository(), "Service-1.json")));
+    }
+
+    @Test
+    public void lockedIndexUpdatesInMemoryAndIsWrittenLater() throws Exception {
+        val first = commit("Service-1.json", "{ \"id\": 1 }");
+        val index = new PathHistoryIndex(gitDir);
+        index.update(git.getRepository());
+        val lock = new File(gitDir, PathHistoryIndex.FILE_NAME + ".lock");
+        assertTrue(lock.createNewFile());
+
+        val second = commit("Service-1.json", "{ \"id\": 1, \"name\": \"changed\" }");
+        assertEquals(List.of(second.getId(), first.getId()), commits(index.entries(git.getRepository(), "Service-1.json")));
+        assertEquals(1, tipLines());
+
+        assertTrue(lock.delete());
+        val third = commit("Service-1.json", "{ \"id\": 1, \"name\": \"again\" }");
+        index.update(git.getRepository());
+
+        assertEquals(List.of(third.getId(), second.getId(), first.getId()),
+                commits(new PathHistoryIndex(gitDir).entries(git.getRepository(), "Service-1.json")));
+    }
+
+    @Test
+    public void indexIsRebuiltWhenHeadMovesBack() throws Exception {
+        val first = commit("Service-1.json", "{ \"id\": 1 }");
+        val index = new PathHistoryIndex(gitDir);
+        commit("Service-1.json", "{ \"id\": 1, \"name\": \"changed\" }");
+        index.update(git.getRepository());
+
+        git.reset().setMode(ResetCommand.ResetType.HARD).setRef(first.getName()).call();
+
+        assertEquals(List.of(first.getId()), commits(index.entries(git.getRepository(), "Service-1.json")));
+        assertEquals(1, tipLines());
+    }
+
+    private RevCommit commit(final String name, final String content) throws Exception {
+        Files.write(repo.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(name).call();
+        return git.commit().setMessage("Change " + name).call();
+    }
+
+    private ObjectId blob(final RevCommit commit, final String path) throws Exception {
+        try (val walk = TreeWalk.forPath(git.getRepository(), path, commit.getTree())) {
+            return walk.getObjectId(0);
+        }
+    }
+
+    private long tipLines() throws Exception {
+        return Files.readAllLines(new File(gitDir, PathHistoryIndex.FILE_NAME).toPath()).stream()
+                .filter(l -> l.startsWith("tip ")).count();
+    }
+
+    private static List<ObjectId> commits(final List<PathHistoryIndex.Entry> entries) {
+        return entries.stream().map(PathHistoryIndex.Entry::getCommit).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,227 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.configuration.CasManagementConfigurationProperties;
+import org.apereo.cas.mgmt.domain.NodeDistribution;
+import org.apereo.cas.mgmt.domain.PublishStatus;
+import org.apereo.cas.mgmt.factory.RepositoryFactory;
+import org.apereo.cas.mgmt.util.CasManagementUtils;
+import org.apereo.cas.services.RegexRegisteredService;
+import org.apereo.cas.services.ServicesManager;
+
+import lombok.val;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for PublishJobs.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class PublishJobsTests {
+
+    private static final ObjectId PUBLISHED = ObjectId.fromString("1111111111111111111111111111111111111111");
+
+    private static final ObjectId HEAD = ObjectId.fromString("2222222222222222222222222222222222222222");
+
+    private final CountDownLatch syncing = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private GitUtil git;
+
+    private ServiceDistributor distributor;
+
+    private ServicesManager servicesManager;
+
+    private PublishJobs publishJobs;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        git = mock(GitUtil.class);
+        val repository = mock(Repository.class);
+        when(git.getRepository()).thenReturn(repository);
+        when(repository.resolve(Constants.HEAD)).thenReturn(HEAD);
+        when(git.publishedCommit()).thenReturn(PUBLISHED);
+        when(git.getTreeDiffs(PUBLISHED, HEAD)).thenReturn(List.of());
+        val repositoryFactory = mock(RepositoryFactory.class);
+        when(repositoryFactory.masterRepository()).thenReturn(git);
+        distributor = mock(ServiceDistributor.class);
+        when(distributor.isEnabled()).thenReturn(true);
+        when(distributor.distribute(git, null, PUBLISHED)).thenAnswer(invocation -> {
+            syncing.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return new ArrayList<>();
+        });
+        when(distributor.distribute(git, PUBLISHED, HEAD)).thenReturn(new ArrayList<>());
+        servicesManager = mock(ServicesManager.class);
+        publishJobs = new PublishJobs(repositoryFactory, servicesManager,
+                new CasManagementConfigurationProperties(), distributor);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        release.countDown();
+        publishJobs.destroy();
+    }
+
+    @Test
+    public void publishIsQueuedBehindRunningSync() throws Exception {
+        val sync = publishJobs.start(false);
+        assertTrue(syncing.await(10, TimeUnit.SECONDS));
+
+        val publish = publishJobs.start(true);
+
+        assertEquals("SYNC", sync.getType());
+        assertEquals("PUBLISH", publish.getType());
+        assertNotEquals(sync.getId(), publish.getId());
+        assertEquals("QUEUED", publish.getPhase());
+        assertEquals(publish.getId(), publishJobs.start(true).getId());
+        verify(git, never()).setPublished(any());
+
+        release.countDown();
+
+        assertEquals("COMPLETED", await(sync.getId()).getPhase());
+        assertEquals("COMPLETED", await(publish.getId()).getPhase());
+        verify(git).setPublished(HEAD);
+    }
+
+    @Test
+    public void syncAttachesToRunningSync() throws Exception {
+        val first = publishJobs.start(false);
+        assertTrue(syncing.await(10, TimeUnit.SECONDS));
+
+        assertEquals(first.getId(), publishJobs.start(false).getId());
+
+        release.countDown();
+        assertEquals("COMPLETED", await(first.getId()).getPhase());
+        val next = publishJobs.start(false);
+        assertNotEquals(first.getId(), next.getId());
+    }
+
+    @Test
+    public void unfinishedJobsAreNotEvicted() throws Exception {
+        val sync = publishJobs.start(false);
+        assertTrue(syncing.await(10, TimeUnit.SECONDS));
+        val queued = new ArrayList<String>();
+        for (int i = 0; i < 12; i++) {
+            queued.add(publishJobs.start(i % 2 == 0).getId());
+        }
+
+        assertEquals("SYNC", publishJobs.status(sync.getId(), 0).getType());
+        queued.forEach(id -> assertEquals("QUEUED", publishJobs.status(id, 0).getPhase()));
+
+        release.countDown();
+        assertEquals("COMPLETED", await(queued.get(queued.size() - 1)).getPhase());
+        publishJobs.start(false);
+        assertNull(publishJobs.status(sync.getId(), 0));
+    }
+
+    @Test
+    public void failedDistributionKeepsPublishedTag() throws Exception {
+        val failed = new NodeDistribution();
+        failed.setName("cas1");
+        when(distributor.distribute(git, PUBLISHED, HEAD)).thenReturn(new ArrayList<>(List.of(failed)));
+
+        val publish = await(publishJobs.start(true).getId());
+
+        assertEquals("FAILED", publish.getPhase());
+        assertTrue(publish.getError().contains("cas1"));
+        verify(git, never()).setPublished(any());
+    }
+
+    @Test
+    public void mismatchedRenameDoesNotDeleteSavedService() throws Exception {
+        val moved = blob(1, "X");
+        val added = blob(3, "Y");
+        val movedTo = blob(1, "Z");
+        val readme = ObjectId.fromString("4444444444444444444444444444444444444444");
+        when(git.getTreeDiffs(PUBLISHED, HEAD)).thenReturn(List.of(
+                diff(DiffEntry.ChangeType.RENAME, "X-1.json", moved, "Y-3.json", added),
+                diff(DiffEntry.ChangeType.ADD, null, null, "Z-1.json", movedTo),
+                diff(DiffEntry.ChangeType.ADD, null, null, "README.md", readme)));
+
+        val publish = await(publishJobs.start(true).getId());
+
+        assertEquals("COMPLETED", publish.getPhase());
+        assertEquals(2, publish.getTotal());
+        verify(servicesManager, never()).delete(anyLong());
+        verify(servicesManager).save(argThat(s -> s.getId() == 1));
+        verify(servicesManager).save(argThat(s -> s.getId() == 3));
+        verify(git, never()).readObject(readme);
+        verify(git, never()).serviceMetadata(readme);
+    }
+
+    @Test
+    public void deletedServiceIsDeletedBeforeSaves() throws Exception {
+        val deleted = blob(5, "Gone");
+        when(git.getTreeDiffs(PUBLISHED, HEAD)).thenReturn(List.of(
+                diff(DiffEntry.ChangeType.DELETE, "Gone-5.json", deleted, null, null)));
+
+        assertEquals("COMPLETED", await(publishJobs.start(true).getId()).getPhase());
+
+        verify(servicesManager).delete(5L);
+    }
+
+    @Test
+    public void publishWithoutHeadFails() throws Exception {
+        when(git.getRepository().resolve(Constants.HEAD)).thenReturn(null);
+
+        val publish = await(publishJobs.start(true).getId());
+
+        assertEquals("FAILED", publish.getPhase());
+        assertTrue(publish.getError().contains("no commits"));
+        verify(git, never()).getTreeDiffs(any(), any());
+        verify(git, never()).setPublished(any());
+    }
+
+    private ObjectId blob(final long id, final String name) throws Exception {
+        val service = new RegexRegisteredService();
+        service.setId(id);
+        service.setName(name);
+        service.setServiceId("^https://" + name.toLowerCase() + ".example.org/.*");
+        val blob = ObjectId.fromString(String.format("%040x", id * 31 + name.hashCode() & 0xffffffL));
+        when(git.serviceMetadata(blob)).thenReturn(ServiceMetadata.of(service));
+        when(git.readObject(blob)).thenReturn(CasManagementUtils.toJson(service));
+        return blob;
+    }
+
+    private static DiffEntry diff(final DiffEntry.ChangeType type, final String oldPath, final ObjectId oldId,
+                                  final String newPath, final ObjectId newId) {
+        val diff = mock(DiffEntry.class);
+        when(diff.getChangeType()).thenReturn(type);
+        when(diff.getOldPath()).thenReturn(oldPath);
+        when(diff.getNewPath()).thenReturn(newPath);
+        if (oldId != null) {
+            when(diff.getOldId()).thenReturn(AbbreviatedObjectId.fromObjectId(oldId));
+        }
+        if (newId != null) {
+            when(diff.getNewId()).thenReturn(AbbreviatedObjectId.fromObjectId(newId));
+        }
+        return diff;
+    }
+
+    private PublishStatus await(final String id) throws Exception {
+        val deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        var status = publishJobs.status(id, 0);
+        while (status.getFinished() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = publishJobs.status(id, 0);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,196 @@
+package org.apereo.cas.mgmt;
+
+import lombok.val;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.TagOpt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for RepositoryMaintenance.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class RepositoryMaintenanceTests {
+
+    private static final String ZERO = "0000000000000000000000000000000000000000";
+
+    private static final String ONE = "1111111111111111111111111111111111111111";
+
+    private static final long CUTOFF = 2_000_000L * 1000L;
+
+    @TempDir
+    Path gitDir;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        Files.write(gitDir.resolve("HEAD"), "ref: refs/heads/master\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void blankWindowContainsEveryTime() {
+        assertTrue(RepositoryMaintenance.inWindow(null, LocalTime.NOON));
+        assertTrue(RepositoryMaintenance.inWindow(" ", LocalTime.MIDNIGHT));
+    }
+
+    @Test
+    public void windowIncludesStartAndExcludesEnd() {
+        assertTrue(RepositoryMaintenance.inWindow("01:00-05:00", LocalTime.of(1, 0)));
+        assertTrue(RepositoryMaintenance.inWindow("01:00 - 05:00", LocalTime.of(4, 59)));
+        assertFalse(RepositoryMaintenance.inWindow("01:00-05:00", LocalTime.of(5, 0)));
+        assertFalse(RepositoryMaintenance.inWindow("01:00-05:00", LocalTime.of(0, 59)));
+    }
+
+    @Test
+    public void windowWrapsPastMidnight() {
+        assertTrue(RepositoryMaintenance.inWindow("22:00-02:00", LocalTime.of(23, 30)));
+        assertTrue(RepositoryMaintenance.inWindow("22:00-02:00", LocalTime.of(1, 30)));
+        assertFalse(RepositoryMaintenance.inWindow("22:00-02:00", LocalTime.of(2, 0)));
+        assertFalse(RepositoryMaintenance.inWindow("22:00-02:00", LocalTime.NOON));
+    }
+
+    @Test
+    public void expiresOldEntriesAndKeepsNewest() throws Exception {
+        val reflog = reflog("refs/heads/master", entry(1_000_000), entry(1_500_000), entry(2_500_000));
+        val only = reflog("refs/heads/old", entry(1_000_000));
+
+        assertEquals(2, RepositoryMaintenance.expireReflogs(gitDir.toFile(), CUTOFF));
+
+        assertEquals(List.of(entry(2_500_000)), Files.readAllLines(reflog));
+        assertEquals(List.of(entry(1_000_000)), Files.readAllLines(only));
+    }
+
+    @Test
+    public void skipsReflogWhoseRefIsLocked() throws Exception {
+        val reflog = reflog("refs/heads/master", entry(1_000_000), entry(2_500_000));
+        val branch = reflog("refs/heads/other", entry(1_000_000), entry(2_500_000));
+        lock("refs/heads/master");
+
+        assertEquals(1, RepositoryMaintenance.expireReflogs(gitDir.toFile(), CUTOFF));
+
+        assertEquals(2, Files.readAllLines(reflog).size());
+        assertEquals(1, Files.readAllLines(branch).size());
+    }
+
+    @Test
+    public void skipsHeadReflogWhileItsBranchIsLocked() throws Exception {
+        val head = reflog("HEAD", entry(1_000_000), entry(2_500_000));
+        lock("refs/heads/master");
+
+        assertEquals(0, RepositoryMaintenance.expireReflogs(gitDir.toFile(), CUTOFF));
+        assertEquals(2, Files.readAllLines(head).size());
+
+        Files.delete(gitDir.resolve("refs/heads/master.lock"));
+        assertEquals(1, RepositoryMaintenance.expireReflogs(gitDir.toFile(), CUTOFF));
+        assertEquals(List.of(entry(2_500_000)), Files.readAllLines(head));
+        assertFalse(Files.exists(gitDir.resolve("refs/heads/master.lock")));
+        assertFalse(Files.exists(gitDir.resolve("HEAD.lock")));
+    }
+
+    @Test
+    public void missingLogsExpireNothing() throws Exception {
+        assertEquals(0, RepositoryMaintenance.expireReflogs(gitDir.toFile(), CUTOFF));
+    }
+
+    @Test
+    public void packLooseObjectsOfSharedClone() throws Exception {
+        val masterDir = gitDir.resolve("master").toFile();
+        try (val master = Git.init().setDirectory(masterDir).call()) {
+            Files.write(masterDir.toPath().resolve("Service-1.json"), "{ \"id\": 1 }".getBytes(StandardCharsets.UTF_8));
+            master.add().addFilepattern(".").call();
+            master.commit().setMessage("Master").call();
+        }
+        val cloneDir = gitDir.resolve("clone").toFile();
+        try (val clone = Git.init().setDirectory(cloneDir).call()) {
+            val alternates = cloneDir.toPath().resolve(".git/objects/info/alternates");
+            Files.createDirectories(alternates.getParent());
+            Files.write(alternates, (new File(masterDir, ".git/objects").getAbsolutePath() + '\n').getBytes(StandardCharsets.UTF_8));
+            clone.fetch().setRemote(new File(masterDir, ".git").getAbsolutePath())
+                    .setRefSpecs("+refs/heads/*:refs/remotes/origin/*").setTagOpt(TagOpt.NO_TAGS).call();
+            clone.checkout().setCreateBranch(true).setName("work").setStartPoint("origin/master").call();
+            Files.write(cloneDir.toPath().resolve("Service-2.json"), "{ \"id\": 2 }".getBytes(StandardCharsets.UTF_8));
+            clone.add().addFilepattern(".").call();
+            val commit = clone.commit().setMessage("Clone").call();
+            val loose = looseObjects(cloneDir);
+            assertEquals(3, loose);
+
+            assertEquals(loose, RepositoryMaintenance.packObjects((FileRepository) clone.getRepository(), 16));
+
+            assertEquals(0, looseObjects(cloneDir));
+            val stats = new GC((FileRepository) clone.getRepository()).getStatistics();
+            assertEquals(1, stats.numberOfPackFiles);
+            assertEquals(loose, stats.numberOfPackedObjects);
+            assertEquals("Clone", clone.getRepository().parseCommit(commit).getFullMessage());
+            assertEquals(0, RepositoryMaintenance.packObjects((FileRepository) clone.getRepository(), 16));
+        }
+    }
+
+    @Test
+    public void packCountStaysBoundedWithoutPruning() throws Exception {
+        val masterDir = gitDir.resolve("bounded").toFile();
+        try (val master = Git.init().setDirectory(masterDir).call()) {
+            val repository = (FileRepository) master.getRepository();
+            ObjectId unreachable;
+            try (val inserter = repository.newObjectInserter()) {
+                unreachable = inserter.insert(Constants.OBJ_BLOB, "unreachable".getBytes(StandardCharsets.UTF_8));
+                inserter.flush();
+            }
+            val commits = new ArrayList<ObjectId>();
+            for (int i = 0; i < 10; i++) {
+                Files.write(masterDir.toPath().resolve("Service-" + i + ".json"), ("{ \"id\": " + i + " }").getBytes(StandardCharsets.UTF_8));
+                master.add().addFilepattern(".").call();
+                commits.add(master.commit().setMessage("Commit " + i).call());
+
+                assertTrue(RepositoryMaintenance.packObjects(repository, 3) > 0);
+
+                assertEquals(0, looseObjects(masterDir));
+                assertTrue(new GC(repository).getStatistics().numberOfPackFiles <= 3);
+            }
+            for (int i = 0; i < commits.size(); i++) {
+                assertEquals("Commit " + i, repository.parseCommit(commits.get(i)).getFullMessage());
+            }
+            assertTrue(repository.getObjectDatabase().has(unreachable));
+        }
+    }
+
+    private static long looseObjects(final File workTree) throws Exception {
+        try (val files = Files.walk(workTree.toPath().resolve(".git/objects"))) {
+            return files.filter(Files::isRegularFile)
+                    .filter(f -> f.getParent().getFileName().toString().length() == 2)
+                    .count();
+        }
+    }
+
+    private Path reflog(final String refName, final String... entries) throws Exception {
+        val file = gitDir.resolve("logs").resolve(refName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, List.of(entries), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private void lock(final String refName) throws Exception {
+        val lock = new File(gitDir.toFile(), refName + ".lock");
+        Files.createDirectories(lock.getParentFile().toPath());
+        assertTrue(lock.createNewFile());
+    }
+
+    private static String entry(final long seconds) {
+        return ZERO + ' ' + ONE + " casuser <casuser@example.org> " + seconds + " +0000\tcommit: change";
+    }
+}
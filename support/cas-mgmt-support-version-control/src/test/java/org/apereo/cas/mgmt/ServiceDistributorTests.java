@@ -0,0 +1,180 @@
+package org.apereo.cas.mgmt;
+
+import org.apereo.cas.configuration.CasManagementConfigurationProperties;
+import org.apereo.cas.configuration.model.CasServers;
+
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ServiceDistributor.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class ServiceDistributorTests {
+
+    @TempDir
+    Path root;
+
+    private Path dir;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        dir = Files.createDirectory(root.resolve("services"));
+    }
+
+    @Test
+    public void applyWritesFiles() throws Exception {
+        val deleted = ServiceDistributor.apply(dir, Map.of("App-1.json", bytes("one"), "sub/App-2.json", bytes("two")), List.of(), false);
+
+        assertEquals(0, deleted);
+        assertEquals("one", read("App-1.json"));
+        assertEquals("two", read("sub/App-2.json"));
+        assertEquals(Set.of("App-1.json", "sub/App-2.json"), files());
+    }
+
+    @Test
+    public void applyOverwritesAndDeletes() throws Exception {
+        write("App-1.json", "old");
+        write("Gone-2.json", "gone");
+
+        val deleted = ServiceDistributor.apply(dir, Map.of("App-1.json", bytes("new")), List.of("Gone-2.json", "Missing-3.json"), false);
+
+        assertEquals(1, deleted);
+        assertEquals("new", read("App-1.json"));
+        assertEquals(Set.of("App-1.json"), files());
+    }
+
+    @Test
+    public void applyRenames() throws Exception {
+        write("Old-1.json", "service");
+
+        ServiceDistributor.apply(dir, Map.of("New-1.json", bytes("service")), List.of("Old-1.json"), false);
+
+        assertEquals(Set.of("New-1.json"), files());
+    }
+
+    @Test
+    public void fullApplyDeletesStaleServices() throws Exception {
+        write("Kept-1.json", "old");
+        write("Stale-2.json", "stale");
+        write("sub/Stale-3.json", "stale");
+        write("README.txt", "not a service");
+
+        val deleted = ServiceDistributor.apply(dir, Map.of("Kept-1.json", bytes("new")), List.of(), true);
+
+        assertEquals(2, deleted);
+        assertEquals(Set.of("Kept-1.json", "README.txt"), files());
+        assertEquals("new", read("Kept-1.json"));
+    }
+
+    @Test
+    public void applyFailsOnMissingDirectory() {
+        val missing = root.resolve("unmounted");
+
+        assertThrows(NoSuchFileException.class, () -> ServiceDistributor.apply(missing, Map.of("App-1.json", bytes("one")), List.of(), false));
+        assertFalse(Files.exists(missing));
+    }
+
+    @Test
+    public void distributeReportsEachServer() throws Exception {
+        write("Stale-2.json", "stale");
+        val distributor = new ServiceDistributor(properties(0, dir.toString(), root.resolve("unmounted").toString()));
+
+        val nodes = distributor.distribute(Map.of("App-1.json", bytes("one")), List.of(), true);
+
+        assertEquals(2, nodes.size());
+        val mounted = nodes.get(0);
+        assertTrue(mounted.isSuccess());
+        assertEquals(1, mounted.getAttempts());
+        assertEquals(1, mounted.getWritten());
+        assertEquals(1, mounted.getDeleted());
+        assertNull(mounted.getError());
+        val unmounted = nodes.get(1);
+        assertFalse(unmounted.isSuccess());
+        assertEquals(1, unmounted.getAttempts());
+        assertNotNull(unmounted.getError());
+        assertEquals(Set.of("App-1.json"), files());
+    }
+
+    @Test
+    public void distributeRetriesFailedServer() throws Exception {
+        val late = root.resolve("late");
+        val distributor = new ServiceDistributor(properties(2, late.toString()));
+        val mount = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                Files.createDirectory(late);
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        mount.start();
+
+        val nodes = distributor.distribute(Map.of("App-1.json", bytes("one")), List.of(), false);
+        mount.join();
+
+        assertEquals(1, nodes.size());
+        assertTrue(nodes.get(0).isSuccess());
+        assertTrue(nodes.get(0).getAttempts() > 1);
+        assertTrue(Files.exists(late.resolve("App-1.json")));
+    }
+
+    @Test
+    public void distributeSkipsEmptyChanges() {
+        val distributor = new ServiceDistributor(properties(0, dir.toString()));
+
+        assertTrue(distributor.distribute(Map.of(), List.of(), false).isEmpty());
+    }
+
+    private static CasManagementConfigurationProperties properties(final int retries, final String... dirs) {
+        val properties = new CasManagementConfigurationProperties();
+        val distribution = properties.getVersionControl().getDistribution();
+        distribution.setEnabled(true);
+        distribution.setRetries(retries);
+        distribution.setRetryDelay("PT0.5S");
+        for (var i = 0; i < dirs.length; i++) {
+            val server = new CasServers();
+            server.setName("cas" + i);
+            server.setServicesDir(dirs[i]);
+            properties.getCasServers().add(server);
+        }
+        return properties;
+    }
+
+    private void write(final String path, final String content) throws Exception {
+        val file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes(content));
+    }
+
+    private String read(final String path) throws Exception {
+        return new String(Files.readAllBytes(dir.resolve(path)), StandardCharsets.UTF_8);
+    }
+
+    private Set<String> files() throws Exception {
+        try (val files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .map(f -> dir.relativize(f).toString().replace('\\', '/'))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private static byte[] bytes(final String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package org.apereo.cas.mgmt.controller;
+
+import org.apereo.cas.mgmt.GitUtil;
+import org.apereo.cas.mgmt.MgmtManagerFactory;
+import org.apereo.cas.mgmt.authentication.CasUserProfile;
+import org.apereo.cas.mgmt.authentication.CasUserProfileFactory;
+import org.apereo.cas.mgmt.factory.RepositoryFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.val;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for HistoryController.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class HistoryControllerTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path repo;
+
+    private HistoryController controller;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    public void initialize() throws Exception {
+        try (val git = Git.init().setDirectory(repo.toFile()).call()) {
+            git.commit().setAllowEmpty(true).setMessage(GitUtil.CREATED_MESSAGE).call();
+            git.commit().setAllowEmpty(true).setMessage("First").call();
+            git.commit().setAllowEmpty(true).setMessage("Second").call();
+        }
+        val repositoryFactory = mock(RepositoryFactory.class);
+        when(repositoryFactory.masterRepository()).thenAnswer(i -> new GitUtil(repo.resolve(".git").toString()));
+        val user = mock(CasUserProfile.class);
+        when(user.isAdministrator()).thenReturn(true);
+        val casUserProfileFactory = mock(CasUserProfileFactory.class);
+        when(casUserProfileFactory.from(any(), any())).thenReturn(user);
+        controller = new HistoryController(repositoryFactory, mock(MgmtManagerFactory.class), casUserProfileFactory, MAPPER);
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void pageHasCommitsAndCursor() throws Exception {
+        controller.historyPage(request, response, null, 1, null, null, null, null);
+
+        assertEquals(200, response.getStatus());
+        val page = MAPPER.readTree(response.getContentAsString());
+        assertEquals(1, page.get("commits").size());
+        assertEquals("Second", page.get("commits").get(0).get("text").asText());
+        assertFalse(page.get("cursor").isNull());
+
+        val next = new MockHttpServletResponse();
+        controller.historyPage(request, next, page.get("cursor").asText(), 5, null, null, null, null);
+        val last = MAPPER.readTree(next.getContentAsString());
+        assertEquals(1, last.get("commits").size());
+        assertEquals("First", last.get("commits").get(0).get("text").asText());
+        assertTrue(last.get("cursor").isNull());
+    }
+
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+        controller.historyPage(request, response, "not a cursor", 10, null, null, null, null);
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().isEmpty());
+    }
+
+    @Test
+    public void cursorOfAnotherQueryIsBadRequest() throws Exception {
+        controller.historyPage(request, response, null, 1, null, null, null, null);
+        val cursor = MAPPER.readTree(response.getContentAsString()).get("cursor").asText();
+
+        val other = new MockHttpServletResponse();
+        controller.historyPage(request, other, cursor, 10, null, null, null, "Service-1.json");
+
+        assertEquals(400, other.getStatus());
+    }
+
+    @Test
+    public void malformedDateIsBadRequest() throws Exception {
+        controller.historyPage(request, response, null, 10, null, "yesterday", null, null);
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().isEmpty());
+    }
+}
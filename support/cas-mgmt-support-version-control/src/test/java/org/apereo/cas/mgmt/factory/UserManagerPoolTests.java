@@ -0,0 +1,93 @@
+package org.apereo.cas.mgmt.factory;
+
+import org.apereo.cas.mgmt.VersionControlServicesManager;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link UserManagerPool}.
+ *
+ * @author Travis Schmidt
+ * @since 6.2.0
+ */
+public class UserManagerPoolTests {
+
+    @Test
+    public void verifyPoolReusesManager() {
+        val pool = new UserManagerPool(2, Duration.ofMinutes(5));
+        val manager = mock(VersionControlServicesManager.class);
+        try (val first = pool.acquire("casuser", () -> manager)) {
+            assertSame(manager, first.getManager());
+        }
+        try (val second = pool.acquire("casuser", () -> fail("manager should be pooled"))) {
+            assertSame(manager, second.getManager());
+        }
+        val stats = pool.statistics();
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getMaximumSize());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0, stats.getLeased());
+        verify(manager, never()).close();
+    }
+
+    @Test
+    public void verifyEvictedManagerClosedWhenReleased() {
+        val pool = new UserManagerPool(1, Duration.ofMinutes(5));
+        val first = mock(VersionControlServicesManager.class);
+        val lease = pool.acquire("first", () -> first);
+        try (val other = pool.acquire("second", () -> mock(VersionControlServicesManager.class))) {
+            assertEquals(1, pool.size());
+            assertEquals(2, pool.statistics().getLeased());
+            verify(first, never()).close();
+        }
+        lease.close();
+        verify(first).close();
+        lease.close();
+        verify(first).close();
+        assertEquals(0, pool.statistics().getLeased());
+        assertEquals(1, pool.statistics().getEvictionCount());
+    }
+
+    @Test
+    public void verifyIdleManagerClosedOnInvalidate() {
+        val pool = new UserManagerPool(2, Duration.ofMinutes(5));
+        val manager = mock(VersionControlServicesManager.class);
+        pool.acquire("casuser", () -> manager).close();
+        pool.invalidate("casuser");
+        verify(manager).close();
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void verifyLeaseAfterInvalidateBuildsNewManager() {
+        val pool = new UserManagerPool(2, Duration.ofMinutes(5));
+        val old = mock(VersionControlServicesManager.class);
+        val lease = pool.acquire("casuser", () -> old);
+        pool.invalidateAll();
+        val fresh = mock(VersionControlServicesManager.class);
+        try (val next = pool.acquire("casuser", () -> fresh)) {
+            assertSame(fresh, next.getManager());
+        }
+        verify(old, never()).close();
+        lease.close();
+        verify(old).close();
+        verify(fresh, never()).close();
+    }
+
+    @Test
+    public void verifyLoaderFailurePropagates() {
+        val pool = new UserManagerPool(2, Duration.ofMinutes(5));
+        assertThrows(IllegalStateException.class, () -> pool.acquire("casuser", () -> {
+            throw new IllegalStateException("no clone");
+        }));
+        assertEquals(0, pool.size());
+        assertEquals(1, pool.statistics().getLoadFailureCount());
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Outcome of distributing the published services to one CAS server.
+ */
+export class NodeDistribution {
+  name: string;
+  servicesDir: string;
+  success: boolean;
+  attempts: number;
+  written: number;
+  deleted: number;
+  error: string;
+  duration: number;
+}
+
+/**
+ * Progress of a publish or sync job running on the server.
+ */
+export class PublishStatus {
+  id: string;
+  type: string;
+  phase: string;
+  total: number;
+  applied: number;
+  nodes: NodeDistribution[];
+  output: string[];
+  outputLines: number;
+  started: string;
+  finished: string;
+  error: string;
+}
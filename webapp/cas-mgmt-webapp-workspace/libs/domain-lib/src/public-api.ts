@@ -42,3 +42,4 @@ export * from './lib/service-ticket-expiration.model';
 export * from './lib/proxy-ticket-expiration.model';
 export * from './lib/sso-expiration.model';
 export * from './lib/metadata.model';
+export * from './lib/publish-status.model';
@@ -52,8 +52,12 @@ export class NavigationComponent {
   }
 
   sync() {
-    this.controlsService.sync().subscribe(resp => {
-      this.snackBar.open('Services Synchronized', 'Dismiss', {
+    this.controlsService.sync().subscribe(status => {
+      const failed = status.nodes.filter(n => !n.success).map(n => n.name + ': ' + n.error);
+      const msg = status.phase === 'COMPLETED' ? 'Services Synchronized' :
+        'Sync ' + status.phase.toLowerCase() + (status.error ? ': ' + status.error : '') +
+        (failed.length > 0 ? ' (' + failed.join('; ') + ')' : '');
+      this.snackBar.open(msg, 'Dismiss', {
         duration: 5000
       });
     });
@@ -1,6 +1,6 @@
 import {Component, OnInit, Output, EventEmitter, ViewChild, Input} from '@angular/core';
 import {UserService, AppConfigService} from 'shared-lib';
-import {Commit} from 'domain-lib';
+import {Commit, PublishStatus} from 'domain-lib';
 import {Location} from '@angular/common';
 import {PublishComponent} from '../publish/publish.component';
 import {CommitComponent} from '../commit/commit.component';
@@ -139,7 +139,7 @@ export class ControlsComponent implements OnInit {
     if (commits.length > 0 ) {
       this.service.publish()
         .subscribe(
-          () => this.handlePublish(),
+          status => status.phase === 'COMPLETED' ? this.handlePublish() : this.handleNotPublished(status),
           () => this.handleNotPublished()
         );
     }
@@ -150,11 +150,16 @@ export class ControlsComponent implements OnInit {
     this.showSnackbarAndRefresh('Service changes successfully published.', true);
   }
 
-  handleNotPublished() {
-    this.showSnackbarAndRefresh(
-      'A problem has occurred while trying to publish services to CAS nodes.  Please check system logs for additional information.',
-      false
-    );
+  handleNotPublished(status?: PublishStatus) {
+    this.service.gitStatus();
+    if (status && status.phase === 'CANCELLED') {
+      this.showSnackbarAndRefresh('Publish was cancelled. The remaining changes will be applied by the next publish.', false);
+      return;
+    }
+    const detail = status && status.error
+      ? [status.error, ...status.nodes.filter(n => !n.success).map(n => n.name + ': ' + n.error)].join('; ')
+      : 'Please check system logs for additional information.';
+    this.showSnackbarAndRefresh('A problem has occurred while trying to publish services to CAS nodes. ' + detail, false);
   }
 
   callSubmit() {
@@ -4,14 +4,18 @@
 
 import {Injectable} from '@angular/core';
 import {Service} from 'shared-lib';
-import {Change, Commit, GitStatus} from 'domain-lib';
+import {Change, Commit, GitStatus, PublishStatus} from 'domain-lib';
 import {Observable} from 'rxjs/internal/Observable';
+import {EMPTY, timer} from 'rxjs';
+import {expand, last, switchMap} from 'rxjs/operators';
 
 @Injectable({
   providedIn: 'root'
 })
 export class ControlsService extends Service {
 
+  static readonly POLL_INTERVAL = 2000;
+
   status: GitStatus;
 
   callStatus() {
@@ -25,8 +29,8 @@ export class ControlsService extends Service {
     return this.post('api/commit', msg, 'Committing');
   }
 
-  publish(): Observable<string> {
-    return this.getText('api/commit/publish', 'Publishing');
+  publish(): Observable<PublishStatus> {
+    return this.track('api/commit/publish', 'Publishing');
   }
 
   submit(msg): Observable<string> {
@@ -46,8 +50,22 @@ export class ControlsService extends Service {
       .subscribe(resp => this.status = resp);
   }
 
-  sync(): Observable<string> {
-    return this.getText( 'api/commit/sync', 'Syncing');
+  sync(): Observable<PublishStatus> {
+    return this.track('api/commit/sync', 'Syncing');
+  }
+
+  /**
+   * Starts a publish or sync job, or attaches to the one running, and polls it until it finishes.
+   * Emits the final status of the job.
+   */
+  track(url: string, msg: string): Observable<PublishStatus> {
+    return this.get<PublishStatus>(url).pipe(
+      expand(job => job.finished ? EMPTY : timer(ControlsService.POLL_INTERVAL).pipe(
+        switchMap(() => this.get<PublishStatus>('api/commit/publish/' + job.id + '?from=' + job.outputLines))
+      )),
+      last(),
+      this.startSpinner(msg)
+    );
   }
 
 }